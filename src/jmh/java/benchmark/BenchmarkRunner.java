@@ -0,0 +1,40 @@
+package benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import patrones_farmacia.Singleton.model.EventLog;
+import patrones_farmacia.Singleton.model.NoOpSink;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Ejecuta todos los benchmarks una vez por cada cantidad de hilos de
+ * bench.threads (por ejemplo -Dbench.threads=1,4,8).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("bench.include", "benchmark\\..*");
+        String threads = System.getProperty("bench.threads", "1," + Runtime.getRuntime().availableProcessors());
+        for (String t : threads.split(",")) {
+            Options opts = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(t.trim()))
+                    .forks(1)
+                    .warmupIterations(3)
+                    .measurementIterations(5)
+                    .build();
+            new Runner(opts).run();
+        }
+    }
+
+    /**
+     * Descarta la salida de consola del código medido para que no domine el perfil.
+     */
+    public static void silenceStdout() {
+        EventLog.setSink(new NoOpSink());
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
@@ -0,0 +1,49 @@
+package benchmark.Singleton;
+
+import benchmark.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import patrones_farmacia.Singleton.model.GlobalInvent;
+import patrones_farmacia.factoryMethod.controller.FCreator;
+import patrones_farmacia.factoryMethod.model.Medicine;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsquedas por nombre en el inventario global. Con -Dbench.threads=1,4,...
+ * se mide cómo escala la lectura con el número de cajas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GlobalInventBenchmark {
+
+    @Param({"100", "10000", "80000"})
+    int catalogueSize;
+
+    GlobalInvent inventory;
+    String[] lookups;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkRunner.silenceStdout();
+        FCreator creator = new FCreator();
+        inventory = GlobalInvent.getInstance();
+        inventory.getAllMedicines().clear();
+        lookups = new String[catalogueSize];
+        for (int i = 0; i < catalogueSize; i++) {
+            inventory.addMedicine(creator.createMedicine(FCreator.Type.GENERIC, "Sku-" + i, "Lab", i));
+            lookups[i] = "SKU-" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public Medicine findMedicine(Cursor c) {
+        String name = lookups[c.next];
+        c.next = (c.next + 1) % lookups.length;
+        return inventory.findMedicine(name);
+    }
+}
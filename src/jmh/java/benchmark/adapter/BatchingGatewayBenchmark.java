@@ -0,0 +1,52 @@
+package benchmark.adapter;
+
+import benchmark.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import patrones_farmacia.adapter.model.AdapterPayMethod;
+import patrones_farmacia.adapter.model.BatchingPayAdapter;
+import patrones_farmacia.adapter.model.CashMethod;
+import patrones_farmacia.adapter.model.CreditCardMethod;
+import patrones_farmacia.adapter.model.EWalletMethod;
+import patrones_farmacia.adapter.model.PayMode;
+import patrones_farmacia.adapter.model.SimulatedGateway;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autorizaciones contra una pasarela simulada de 20 ms que concede dos
+ * conexiones: una por viaje frente al adaptador por lotes. Conviene
+ * correrlo con muchos hilos (-Dbench.threads=16,64), que hacen de cajas
+ * esperando su respuesta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchingGatewayBenchmark {
+
+    static final long PAYMENT_CENTS = 100;
+
+    SimulatedGateway gateway;
+    BatchingPayAdapter batching;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkRunner.silenceStdout();
+        AdapterPayMethod accounts = new AdapterPayMethod(new CashMethod(0), new CreditCardMethod("N", "O", "C", 1e13), new EWalletMethod("W", 0));
+        gateway = new SimulatedGateway(accounts, 20, 20, TimeUnit.MILLISECONDS, 2);
+        batching = new BatchingPayAdapter(gateway, 2, TimeUnit.MILLISECONDS, 256);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batching.close();
+    }
+
+    @Benchmark
+    public boolean direct() {
+        return gateway.authorize(new PayMode[] { PayMode.CREDIT }, new long[] { PAYMENT_CENTS }, 1)[0];
+    }
+
+    @Benchmark
+    public boolean batched() {
+        return batching.authorize(PayMode.CREDIT, PAYMENT_CENTS).join();
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark.adapter;
+
+import benchmark.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import patrones_farmacia.adapter.model.AdapterPayMethod;
+import patrones_farmacia.adapter.model.CashMethod;
+import patrones_farmacia.adapter.model.CreditCardMethod;
+import patrones_farmacia.adapter.model.EWalletMethod;
+import patrones_farmacia.adapter.model.PayMode;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Muchos hilos cobrando contra pocas cuentas calientes. Con
+ * -Dbench.threads=1,4,16 se ve cuánto cuesta la contención en los CAS
+ * del saldo; el parámetro hotAccounts (1 y 4) fija entre cuántas cuentas
+ * se reparten los hilos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PaymentContentionBenchmark {
+
+    @Param({"1", "4"})
+    int hotAccounts;
+
+    EWalletMethod[] wallets;
+    AdapterPayMethod[] adapters;
+    final AtomicInteger nextThread = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkRunner.silenceStdout();
+        wallets = new EWalletMethod[hotAccounts];
+        adapters = new AdapterPayMethod[hotAccounts];
+        for (int i = 0; i < hotAccounts; i++) {
+            wallets[i] = new EWalletMethod("HOT-" + i, 1e13);
+            adapters[i] = new AdapterPayMethod(new CashMethod(1e13), new CreditCardMethod("N", "O", "C", 1e13), wallets[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Payer {
+        int account;
+
+        @Setup(Level.Trial)
+        public void setup(PaymentContentionBenchmark bench) {
+            account = bench.nextThread.getAndIncrement() % bench.hotAccounts;
+        }
+    }
+
+    @Benchmark
+    public boolean walletDebit(Payer p) {
+        return wallets[p.account].transferCash(0.01);
+    }
+
+    @Benchmark
+    public boolean adapterCashDebit(Payer p) {
+        return adapters[p.account].pay(PayMode.CASH, 0.01);
+    }
+}
@@ -0,0 +1,67 @@
+package benchmark.chainOfResponsability;
+
+import benchmark.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import patrones_farmacia.adapter.model.*;
+import patrones_farmacia.chainOfResponsability.controller.*;
+import patrones_farmacia.chainOfResponsability.model.InventoryIndex;
+import patrones_farmacia.chainOfResponsability.model.ValidationPipeline;
+import patrones_farmacia.facade.model.Sale;
+import patrones_farmacia.factoryMethod.controller.FCreator;
+import patrones_farmacia.factoryMethod.model.Medicine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ValidationChainBenchmark {
+
+    @Param({"100", "10000", "80000"})
+    int catalogueSize;
+
+    StockValidationHandler chain;
+    ValidationPipeline pipeline;
+    StockValidationHandler indexed;
+    Sale sale;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkRunner.silenceStdout();
+        FCreator creator = new FCreator();
+        List<Medicine> inventory = new ArrayList<>(catalogueSize);
+        for (int i = 0; i < catalogueSize; i++) {
+            inventory.add(creator.createMedicine(FCreator.Type.GENERIC, "Sku-" + i, "Lab", 1));
+        }
+        sale = new Sale("B-1", "Bench");
+        for (int i = 0; i < 5; i++) {
+            sale.addMedicine(inventory.get(catalogueSize - 1 - i));
+        }
+        AdapterPayMethod adapter = new AdapterPayMethod(new CashMethod(1e15), null, null);
+        chain = new StockValidationHandler(inventory);
+        PaymentValidationHandler pay = new PaymentValidationHandler(adapter);
+        chain.setNext(pay);
+        pay.setNext(new FinalizeSaleHandler());
+        pipeline = ValidationPipeline.of(ValidationPipeline.Mode.SHORT_CIRCUIT,
+                new StockValidationHandler(inventory),
+                new PaymentValidationHandler(adapter),
+                new FinalizeSaleHandler());
+        indexed = new StockValidationHandler(InventoryIndex.of(inventory));
+    }
+
+    @Benchmark
+    public boolean handle() {
+        return chain.handle(sale);
+    }
+
+    @Benchmark
+    public boolean pipeline() {
+        return pipeline.handle(sale);
+    }
+
+    @Benchmark
+    public boolean indexedStock() {
+        return indexed.handle(sale);
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark.command;
+
+import benchmark.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import patrones_farmacia.command.controller.MultiCashier;
+import patrones_farmacia.command.controller.RegisterSaleCommand;
+import patrones_farmacia.command.model.SaleReceiver;
+import patrones_farmacia.facade.model.Sale;
+import patrones_farmacia.factoryMethod.controller.FCreator;
+import patrones_farmacia.factoryMethod.model.Medicine;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cada hilo de JMH es una caja: registra una venta y la deshace en su propio
+ * invoker. Comparar los resultados de -Dbench.threads=1,2,4,... muestra cómo
+ * escala el receptor compartido.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MultiCashierBenchmark {
+
+    static final int MAX_TILLS = 256;
+
+    MultiCashier cashiers;
+    Medicine medicine;
+    final AtomicInteger nextTill = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkRunner.silenceStdout();
+        cashiers = new MultiCashier(new SaleReceiver(), MAX_TILLS, 64);
+        medicine = new FCreator().createMedicine(FCreator.Type.GENERIC, "Ibuprofeno", "Lab", 3000);
+        for (int i = 0; i < 10000; i++) {
+            cashiers.getReceiver().registerSale(new Sale("BASE-" + i, "C"));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Till {
+        int id;
+        long counter;
+        String prefix;
+
+        @Setup(Level.Trial)
+        public void setup(MultiCashierBenchmark bench) {
+            id = bench.nextTill.getAndIncrement() % MAX_TILLS;
+            prefix = "T" + id + "-";
+        }
+    }
+
+    @Benchmark
+    public void registerAndUndo(Till t) {
+        Sale s = new Sale(t.prefix + (t.counter++), "C");
+        s.addMedicine(medicine);
+        cashiers.executeCommand(t.id, new RegisterSaleCommand(cashiers.getReceiver(), s));
+        cashiers.undoLast(t.id);
+    }
+}
@@ -0,0 +1,35 @@
+package benchmark.decorator;
+
+import benchmark.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import patrones_farmacia.decorator.controller.DecoratorController;
+import patrones_farmacia.decorator.model.Product;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecoratorChainBenchmark {
+
+    /** Pares descuento/IVA aplicados sobre el producto base. */
+    @Param({"1", "16", "64"})
+    int chainDepth;
+
+    DecoratorController controller;
+    Product product;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkRunner.silenceStdout();
+        controller = new DecoratorController();
+        product = controller.createBaseProduct("Bench", 10000);
+        for (int i = 0; i < chainDepth; i++) {
+            product = controller.applyDiscountThenTax(product, 1, 1);
+        }
+    }
+
+    @Benchmark
+    public double calculateFinalPrice() {
+        return controller.calculateFinalPrice(product);
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark.facade;
+
+import benchmark.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import patrones_farmacia.adapter.model.*;
+import patrones_farmacia.facade.controller.*;
+import patrones_farmacia.facade.model.CheckoutStatus;
+import patrones_farmacia.facade.model.Sale;
+import patrones_farmacia.factoryMethod.controller.FCreator;
+import patrones_farmacia.factoryMethod.model.Medicine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FacadeSaleBenchmark {
+
+    @Param({"100", "10000", "80000"})
+    int catalogueSize;
+
+    FacadeSale facade;
+    InventSystem invent;
+    Sale sale;
+    List<Sale> batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkRunner.silenceStdout();
+        FCreator creator = new FCreator();
+        invent = new InventSystem();
+        for (int i = 0; i < catalogueSize; i++) {
+            invent.addToStock(creator.createMedicine(FCreator.Type.GENERIC, "Sku-" + i, "Lab", 1));
+        }
+        AdapterPayMethod adapter = new AdapterPayMethod(new CashMethod(1e15), null, null);
+        facade = new FacadeSale(invent, new PaySystem(adapter), new ReceiptSystem());
+        sale = new Sale("F-1", "Bench");
+        sale.addMedicine(creator.createMedicine(FCreator.Type.GENERIC, "Sku-" + (catalogueSize / 2), "Lab", 1));
+        sale.addMedicine(creator.createMedicine(FCreator.Type.BRAND, "Sku-" + (catalogueSize - 1), "Lab", 1));
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) batch.add(sale);
+    }
+
+    static final int BATCH_SIZE = 1000;
+
+    @Benchmark
+    public boolean doSale() {
+        boolean ok = facade.doSale(sale, "CASH");
+        for (Medicine m : sale.getItems()) {
+            invent.addToStock(m);
+        }
+        return ok;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public CheckoutStatus[] doSales() {
+        for (Medicine m : sale.getItems()) invent.addToStock(m, BATCH_SIZE);
+        return facade.doSales(batch, "CASH");
+    }
+}
@@ -0,0 +1,42 @@
+package benchmark.observer;
+
+import benchmark.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import patrones_farmacia.observer.model.InventorySubject;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InventorySubjectBenchmark {
+
+    @Param({"100", "10000", "80000"})
+    int catalogueSize;
+
+    InventorySubject subject;
+    String[] names;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkRunner.silenceStdout();
+        subject = new InventorySubject(5);
+        subject.addObserver((name, stock) -> { });
+        names = new String[catalogueSize];
+        for (int i = 0; i < catalogueSize; i++) {
+            names[i] = "Prod-" + i;
+            subject.addProduct(names[i], Integer.MAX_VALUE);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public void reduceStock(Cursor c) {
+        String name = names[c.next];
+        c.next = (c.next + 1) % names.length;
+        subject.reduceStock(name, 1);
+    }
+}
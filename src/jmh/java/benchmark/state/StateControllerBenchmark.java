@@ -0,0 +1,38 @@
+package benchmark.state;
+
+import benchmark.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import patrones_farmacia.state.controller.StateController;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StateControllerBenchmark {
+
+    /** Pedidos registrados en el controlador. */
+    @Param({"100", "10000", "80000"})
+    int catalogueSize;
+
+    StateController controller;
+    String[] ids;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkRunner.silenceStdout();
+        controller = new StateController();
+        ids = new String[catalogueSize];
+        for (int i = 0; i < catalogueSize; i++) {
+            ids[i] = "ORD-" + i;
+            controller.createOrder(ids[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean processOrder() {
+        String id = ids[next];
+        next = (next + 1) % ids.length;
+        return controller.processOrder(id);
+    }
+}
@@ -0,0 +1,34 @@
+package benchmark.strategy;
+
+import org.openjdk.jmh.annotations.*;
+import patrones_farmacia.strategy.controller.DiscountContext;
+import patrones_farmacia.strategy.model.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DiscountContextBenchmark {
+
+    @Param({"NONE", "PERCENTAGE", "VIP"})
+    String strategy;
+
+    DiscountContext context;
+    double total;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new DiscountContext();
+        switch (strategy) {
+            case "PERCENTAGE" -> context.setStrategy(new PercentageDiscount(10));
+            case "VIP" -> context.setStrategy(new VIPClientDiscount(50000, 15));
+            default -> context.setStrategy(new NoDiscount());
+        }
+        total = 120000;
+    }
+
+    @Benchmark
+    public double apply() {
+        return context.apply(total);
+    }
+}
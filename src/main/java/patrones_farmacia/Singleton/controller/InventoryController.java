@@ -1,5 +1,6 @@
 package patrones_farmacia.Singleton.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import patrones_farmacia.Singleton.model.GlobalInvent;
 import patrones_farmacia.factoryMethod.model.Medicine;
 
@@ -9,14 +10,14 @@ public class InventoryController {
 
     public void registerMedicine(Medicine m) {
         inventory.addMedicine(m);
-        System.out.println("Medicamento agregado al inventario: " + m.getName());
+        if (EventLog.enabled()) EventLog.emit("Medicamento agregado al inventario: " + m.getName());
     }
 
     public void removeMedicine(String name) {
         if (inventory.removeMedicine(name)) {
-            System.out.println("Medicamento eliminado: " + name);
+            if (EventLog.enabled()) EventLog.emit("Medicamento eliminado: " + name);
         } else {
-            System.out.println("No se encontró el medicamento: " + name);
+            if (EventLog.enabled()) EventLog.emit("No se encontró el medicamento: " + name);
         }
     }
 
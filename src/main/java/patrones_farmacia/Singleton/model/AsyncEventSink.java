@@ -0,0 +1,64 @@
+package patrones_farmacia.Singleton.model;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encola los mensajes y los escribe en otro hilo. Si la cola está llena el
+ * mensaje se descarta: el hilo de venta nunca espera por la consola.
+ */
+public class AsyncEventSink implements EventSink {
+
+    private final EventSink delegate;
+    private final BlockingQueue<String> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AsyncEventSink(EventSink delegate, int capacity) {
+        if (delegate == null) throw new IllegalArgumentException("El destino no puede ser null.");
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drain, "farma-event-sink");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public boolean isEnabled() { return delegate.isEnabled(); }
+
+    @Override
+    public void emit(String message) {
+        if (!running || !queue.offer(message)) dropped.increment();
+    }
+
+    public long getDroppedCount() { return dropped.sum(); }
+
+    public int getPending() { return queue.size(); }
+
+    /**
+     * Deja de aceptar mensajes y espera a que se escriban los pendientes.
+     * Lo que se emita después se descarta y cuenta en getDroppedCount.
+     */
+    public void close(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(unit.toMillis(timeout));
+    }
+
+    private void drain() {
+        try {
+            while (running) {
+                delegate.emit(queue.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String pending;
+        while ((pending = queue.poll()) != null) {
+            delegate.emit(pending);
+        }
+    }
+}
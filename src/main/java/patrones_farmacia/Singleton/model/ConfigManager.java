@@ -42,7 +42,7 @@ public class ConfigManager {
             environment.equalsIgnoreCase("desarrollo")) {
             this.environment = environment.toLowerCase();
         } else {
-            System.out.println("Ambiente no válido. Use 'producción' o 'desarrollo'.");
+            EventLog.emit("Ambiente no válido. Use 'producción' o 'desarrollo'.");
         }
     }
 
@@ -0,0 +1,12 @@
+package patrones_farmacia.Singleton.model;
+
+public class ConsoleSink implements EventSink {
+
+    @Override
+    public boolean isEnabled() { return true; }
+
+    @Override
+    public void emit(String message) {
+        System.out.println(message);
+    }
+}
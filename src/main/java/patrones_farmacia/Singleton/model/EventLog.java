@@ -0,0 +1,30 @@
+package patrones_farmacia.Singleton.model;
+
+/**
+ * Punto único de salida de mensajes del sistema. Por defecto escribe en
+ * consola; en producción se cambia por NoOpSink o AsyncEventSink. Los
+ * llamadores consultan enabled() antes de concatenar el mensaje.
+ */
+public final class EventLog {
+
+    private static volatile EventSink sink = new ConsoleSink();
+
+    private EventLog() { }
+
+    public static boolean enabled() {
+        return sink.isEnabled();
+    }
+
+    public static void emit(String message) {
+        EventSink s = sink;
+        if (s.isEnabled()) s.emit(message);
+    }
+
+    public static EventSink getSink() {
+        return sink;
+    }
+
+    public static void setSink(EventSink newSink) {
+        sink = (newSink == null) ? new NoOpSink() : newSink;
+    }
+}
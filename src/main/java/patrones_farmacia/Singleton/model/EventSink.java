@@ -0,0 +1,6 @@
+package patrones_farmacia.Singleton.model;
+
+public interface EventSink {
+    boolean isEnabled();
+    void emit(String message);
+}
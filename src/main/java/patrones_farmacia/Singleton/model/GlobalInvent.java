@@ -1,60 +1,230 @@
 package patrones_farmacia.Singleton.model;
 
 import patrones_farmacia.factoryMethod.model.Medicine;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Inventario global compartido entre cajas. Las escrituras se serializan
+ * solo por nombre de medicamento (bloqueo por segmento del ConcurrentHashMap)
+ * y las lecturas no bloquean.
+ */
 public class GlobalInvent {
 
-    private static GlobalInvent instance;
-    private List<Medicine> medicines;
+    private final ConcurrentHashMap<String, Bucket> medicines;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private final List<Medicine> view = new MedicinesView();
 
     private GlobalInvent() {
-        medicines = new ArrayList<>();
+        medicines = new ConcurrentHashMap<>();
     }
 
-    public static synchronized GlobalInvent getInstance() {
-        if (instance == null) {
-            instance = new GlobalInvent();
-        }
-        return instance;
+    private static class Holder {
+        private static final GlobalInvent INSTANCE = new GlobalInvent();
+    }
+
+    public static GlobalInvent getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    static String key(String name) {
+        return (name == null) ? "" : name.toLowerCase(Locale.ROOT);
     }
 
     public void addMedicine(Medicine m) {
-        medicines.add(m);
+        medicines.compute(key(m.getName()), (k, b) ->
+                (b == null) ? new Bucket(sequence.incrementAndGet(), new Medicine[] { m }) : b.with(m));
+        version.incrementAndGet();
     }
 
     public boolean removeMedicine(String name) {
-        for (int i = 0; i < medicines.size(); i++) {
-            if (medicines.get(i).getName().equalsIgnoreCase(name)) {
-                medicines.remove(i);
-                return true;
-            }
+        if (name == null) return false;
+        boolean[] removed = new boolean[1];
+        medicines.computeIfPresent(key(name), (k, b) -> {
+            removed[0] = true;
+            return b.withoutFirst();
+        });
+        if (removed[0]) {
+            version.incrementAndGet();
         }
-        return false;
+        return removed[0];
     }
 
     public Medicine findMedicine(String name) {
-        for (Medicine m : medicines) {
-            if (m.getName().equalsIgnoreCase(name)) {
-                return m;
-            }
-        }
-        return null;
+        if (name == null) return null;
+        Bucket b = medicines.get(key(name));
+        return (b == null) ? null : b.items[0];
     }
 
+    /**
+     * Vista viva sobre el índice: los cambios hechos a través de la lista
+     * (clear, remove, add) se reflejan en el inventario. Su iterador recorre
+     * una instantánea, por lo que nunca lanza ConcurrentModificationException.
+     */
     public List<Medicine> getAllMedicines() {
-        return medicines;
+        return view;
+    }
+
+    /**
+     * Copia consistente por medicamento, en orden de inserción.
+     */
+    public List<Medicine> snapshot() {
+        List<Bucket> buckets = new ArrayList<>(medicines.values());
+        buckets.sort(Comparator.comparingLong(b -> b.seq));
+        List<Medicine> copy = new ArrayList<>(buckets.size());
+        for (Bucket b : buckets) {
+            copy.addAll(Arrays.asList(b.items));
+        }
+        return copy;
     }
 
     public void showInventory() {
-        System.out.println("\n=== INVENTARIO GLOBAL ===");
-        if (medicines.isEmpty()) {
-            System.out.println("Inventario vacío.");
+        if (!EventLog.enabled()) return;
+        List<Medicine> copy = snapshot();
+        EventLog.emit("\n=== INVENTARIO GLOBAL ===");
+        if (copy.isEmpty()) {
+            EventLog.emit("Inventario vacío.");
         } else {
-            for (Medicine m : medicines) {
-                System.out.println("- " + m);
+            for (Medicine m : copy) {
+                EventLog.emit("- " + m);
+            }
+        }
+    }
+
+    private boolean removeExact(Medicine m) {
+        boolean[] removed = new boolean[1];
+        medicines.computeIfPresent(key(m.getName()), (k, b) -> {
+            Bucket next = b.without(m);
+            removed[0] = next != b;
+            return next;
+        });
+        if (removed[0]) {
+            version.incrementAndGet();
+        }
+        return removed[0];
+    }
+
+    private void clearAll() {
+        for (String k : medicines.keySet()) {
+            medicines.remove(k);
+        }
+        version.incrementAndGet();
+    }
+
+    private static final class Bucket {
+        final long seq;
+        final Medicine[] items;
+
+        Bucket(long seq, Medicine[] items) {
+            this.seq = seq;
+            this.items = items;
+        }
+
+        Bucket with(Medicine m) {
+            Medicine[] grown = Arrays.copyOf(items, items.length + 1);
+            grown[items.length] = m;
+            return new Bucket(seq, grown);
+        }
+
+        Bucket withoutFirst() {
+            return (items.length == 1) ? null : new Bucket(seq, Arrays.copyOfRange(items, 1, items.length));
+        }
+
+        Bucket without(Medicine m) {
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] == m) {
+                    if (items.length == 1) return null;
+                    Medicine[] shrunk = new Medicine[items.length - 1];
+                    System.arraycopy(items, 0, shrunk, 0, i);
+                    System.arraycopy(items, i + 1, shrunk, i, items.length - i - 1);
+                    return new Bucket(seq, shrunk);
+                }
             }
+            return this;
+        }
+    }
+
+    /**
+     * La vista guarda la última instantánea y solo la rehace cuando el
+     * inventario cambió, así un recorrido por índice no la reconstruye en
+     * cada get. size y get leen esa misma instantánea, así que la vista
+     * refleja el inventario tras el último cambio: un índice menor que size
+     * sigue siendo válido mientras nadie quite medicamentos. Para recorrer
+     * mientras otros hilos quitan, usar el iterador o snapshot.
+     */
+    private class MedicinesView extends AbstractList<Medicine> {
+
+        private volatile Cached cached;
+
+        @Override
+        public Medicine get(int i) { return current().get(i); }
+
+        @Override
+        public int size() { return current().size(); }
+
+        @Override
+        public boolean add(Medicine m) {
+            addMedicine(m);
+            return true;
+        }
+
+        @Override
+        public Medicine remove(int i) {
+            Medicine m = get(i);
+            removeExact(m);
+            return m;
+        }
+
+        @Override
+        public void clear() { clearAll(); }
+
+        @Override
+        public Iterator<Medicine> iterator() {
+            Iterator<Medicine> it = current().iterator();
+            return new Iterator<>() {
+                private Medicine last;
+
+                @Override
+                public boolean hasNext() { return it.hasNext(); }
+
+                @Override
+                public Medicine next() { return last = it.next(); }
+
+                @Override
+                public void remove() {
+                    if (last == null) throw new IllegalStateException();
+                    removeExact(last);
+                    last = null;
+                }
+            };
+        }
+
+        private List<Medicine> current() {
+            long v = version.get();
+            Cached c = cached;
+            if (c == null || c.version != v) {
+                c = new Cached(v, snapshot());
+                cached = c;
+            }
+            return c.items;
+        }
+    }
+
+    private static final class Cached {
+        final long version;
+        final List<Medicine> items;
+
+        Cached(long version, List<Medicine> items) {
+            this.version = version;
+            this.items = items;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package patrones_farmacia.Singleton.model;
+
+public class NoOpSink implements EventSink {
+
+    @Override
+    public boolean isEnabled() { return false; }
+
+    @Override
+    public void emit(String message) { }
+}
@@ -1,18 +1,67 @@
 package patrones_farmacia.adapter.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import patrones_farmacia.adapter.model.*;
+import patrones_farmacia.util.Money;
+import java.util.concurrent.TimeUnit;
 
 public class PaymentController {
 
+    public static final int DEFAULT_IDEMPOTENCY_CAPACITY = 10_000;
+    public static final long DEFAULT_IDEMPOTENCY_TTL_MINUTES = 15;
+
     private AdapterPayMethod adapter;
+    private final IdempotencyCache idempotency;
 
     public PaymentController(AdapterPayMethod adapter) {
+        this(adapter, new IdempotencyCache(DEFAULT_IDEMPOTENCY_CAPACITY, DEFAULT_IDEMPOTENCY_TTL_MINUTES, TimeUnit.MINUTES));
+    }
+
+    public PaymentController(AdapterPayMethod adapter, IdempotencyCache idempotency) {
+        if (idempotency == null) throw new IllegalArgumentException("La caché de idempotencia no puede ser null.");
         this.adapter = adapter;
+        this.idempotency = idempotency;
     }
 
+    /**
+     * El modo viaja con cada cobro: el controlador no toca el modo guardado
+     * en el adaptador, así que varias cajas pueden compartirlo.
+     */
     public boolean processPayment(String mode, double amount) {
-        adapter.setMode(mode);
-        System.out.println("\nProcesando pago por: " + adapter.getName());
-        return adapter.pay(amount);
+        if (amount < 0) {
+            announce(mode);
+            return false;
+        }
+        return processPaymentCents(mode, Money.of(amount));
+    }
+
+    public boolean processPaymentCents(String mode, long amountCents) {
+        PayMode m = announce(mode);
+        return (m != null) ? adapter.payCents(m, amountCents) : adapter.payCents(mode, amountCents);
+    }
+
+    /**
+     * Como processPayment, pero un reintento con la misma clave (por ejemplo
+     * tras un timeout) devuelve el resultado del primer intento sin volver a
+     * cobrar. Sin clave se comporta igual que processPayment.
+     */
+    public boolean processPayment(String idempotencyKey, String mode, double amount) {
+        if (amount < 0) return processPayment(mode, amount);
+        return processPaymentCents(idempotencyKey, mode, Money.of(amount));
+    }
+
+    public boolean processPaymentCents(String idempotencyKey, String mode, long amountCents) {
+        if (idempotencyKey == null) return processPaymentCents(mode, amountCents);
+        PayMode m = PayMode.parse(mode);
+        long fingerprint = amountCents * 4 + ((m == null) ? 3 : m.ordinal());
+        return idempotency.execute(idempotencyKey, fingerprint, () -> processPaymentCents(mode, amountCents));
+    }
+
+    public IdempotencyCache getIdempotencyCache() { return idempotency; }
+
+    private PayMode announce(String mode) {
+        PayMode m = PayMode.parse(mode);
+        if (EventLog.enabled()) EventLog.emit("\nProcesando pago por: " + ((m == null) ? "Desconocido" : m.getDisplayName()));
+        return m;
     }
 }
\ No newline at end of file
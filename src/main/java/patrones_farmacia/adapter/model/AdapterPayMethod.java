@@ -1,17 +1,39 @@
 package patrones_farmacia.adapter.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
+import patrones_farmacia.util.Money;
+import java.util.function.LongPredicate;
+
+/**
+ * Adapta los tres medios de pago a PayMethodInterface. El par setMode/pay
+ * guarda el modo en el propio adaptador, así que no sirve para compartirlo
+ * entre cajas; pay(PayMode, double) recibe el modo en cada llamada y es el
+ * camino seguro para varios hilos.
+ */
 public class AdapterPayMethod implements PayMethodInterface {
 
+    private static final LongPredicate REJECT = cents -> false;
+
     private CashMethod cash;
     private CreditCardMethod credit;
     private EWalletMethod wallet;
     private String currentMode;
+    private final LongPredicate[] routes;
+    private final LongPredicate[] refunds;
 
     public AdapterPayMethod(CashMethod cash, CreditCardMethod credit, EWalletMethod wallet) {
         this.cash = cash;
         this.credit = credit;
         this.wallet = wallet;
         this.currentMode = "CASH";
+        this.routes = new LongPredicate[PayMode.values().length];
+        routes[PayMode.CASH.ordinal()] = (cash == null) ? REJECT : cash::cashPayCents;
+        routes[PayMode.CREDIT.ordinal()] = (credit == null) ? REJECT : credit::makePaymentCents;
+        routes[PayMode.EWALLET.ordinal()] = (wallet == null) ? REJECT : wallet::transferCashCents;
+        this.refunds = new LongPredicate[PayMode.values().length];
+        refunds[PayMode.CASH.ordinal()] = (cash == null) ? REJECT : cash::refundCents;
+        refunds[PayMode.CREDIT.ordinal()] = (credit == null) ? REJECT : credit::refundCents;
+        refunds[PayMode.EWALLET.ordinal()] = (wallet == null) ? REJECT : wallet::refundCents;
     }
 
     public void setMode(String mode) {
@@ -20,33 +42,49 @@ public class AdapterPayMethod implements PayMethodInterface {
 
     @Override
     public boolean pay(double amount) {
+        return pay(currentMode, amount);
+    }
+
+    public boolean pay(String mode, double amount) {
+        if (amount < 0) return false;
+        return payCents(mode, Money.of(amount));
+    }
+
+    /**
+     * Cobra con el modo indicado sin tocar el estado del adaptador.
+     */
+    public boolean pay(PayMode mode, double amount) {
         if (amount < 0) return false;
-        if (currentMode == null) return false;
-
-        switch (currentMode) {
-            case "CASH":
-                if (cash == null) return false;
-                return cash.cashPay(amount);
-            case "CREDIT":
-                if (credit == null) return false;
-                return credit.makePayment(amount);
-            case "EWALLET":
-                if (wallet == null) return false;
-                return wallet.transferCash(amount);
-            default:
-                System.out.println("Modo de pago no soportado.");
-                return false;
+        return payCents(mode, Money.of(amount));
+    }
+
+    public boolean payCents(String mode, long amountCents) {
+        if (amountCents < 0 || mode == null) return false;
+        PayMode m = PayMode.parse(mode);
+        if (m == null) {
+            EventLog.emit("Modo de pago no soportado.");
+            return false;
         }
+        return routes[m.ordinal()].test(amountCents);
+    }
+
+    public boolean payCents(PayMode mode, long amountCents) {
+        if (amountCents < 0 || mode == null) return false;
+        return routes[mode.ordinal()].test(amountCents);
+    }
+
+    /**
+     * Devuelve un cobro ya hecho al mismo medio de pago.
+     */
+    public boolean refundCents(String mode, long amountCents) {
+        if (amountCents < 0 || mode == null) return false;
+        PayMode m = PayMode.parse(mode);
+        return (m != null) && refunds[m.ordinal()].test(amountCents);
     }
 
     @Override
     public String getName() {
-        if (currentMode == null) return "Desconocido";
-        switch (currentMode) {
-            case "CASH": return "Efectivo";
-            case "CREDIT": return "Tarjeta de Crédito";
-            case "EWALLET": return "E-Wallet";
-            default: return "Desconocido";
-        }
+        PayMode m = PayMode.parse(currentMode);
+        return (m == null) ? "Desconocido" : m.getDisplayName();
     }
 }
@@ -0,0 +1,50 @@
+package patrones_farmacia.adapter.model;
+
+import patrones_farmacia.util.Money;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saldo en centavos que varios hilos pueden debitar sin locks: cada débito
+ * compara y descuenta en un solo CAS, así que dos pagos simultáneos no
+ * pueden pasar ambos la verificación y dejar la cuenta en rojo.
+ */
+public class Balance {
+
+    /** Valor que devuelve debit cuando no alcanza el saldo. */
+    public static final long INSUFFICIENT = Long.MIN_VALUE;
+
+    private final AtomicLong cents;
+
+    public Balance(double amount) {
+        this.cents = new AtomicLong(toCents(amount));
+    }
+
+    public static long toCents(double amount) {
+        return Money.of(amount);
+    }
+
+    /**
+     * Descuenta el monto si alcanza y devuelve el saldo que queda, o
+     * INSUFFICIENT si no alcanzó. Un monto negativo suma al saldo.
+     */
+    public long debit(long amountCents) {
+        for (;;) {
+            long current = cents.get();
+            if (current < amountCents) return INSUFFICIENT;
+            long left = current - amountCents;
+            if (cents.compareAndSet(current, left)) return left;
+        }
+    }
+
+    /**
+     * Devuelve un monto al saldo (un reembolso) y retorna el saldo nuevo.
+     */
+    public long credit(long amountCents) {
+        if (amountCents < 0) throw new IllegalArgumentException("El monto no puede ser negativo.");
+        return cents.addAndGet(amountCents);
+    }
+
+    public long getCents() { return cents.get(); }
+
+    public double get() { return Money.toDouble(cents.get()); }
+}
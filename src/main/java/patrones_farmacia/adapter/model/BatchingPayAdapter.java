@@ -0,0 +1,157 @@
+package patrones_farmacia.adapter.model;
+
+import patrones_farmacia.util.Money;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Junta las autorizaciones que llegan durante una ventana corta y las
+ * manda a la pasarela en un solo lote. Cada llamada recibe su propio
+ * futuro, que se completa con la respuesta de su solicitud. Varios lotes
+ * pueden estar en viaje a la vez, así que con una pasarela lenta el
+ * rendimiento crece con el tamaño del lote en lugar de quedar en una
+ * autorización por viaje.
+ */
+public class BatchingPayAdapter {
+
+    private final PaymentGateway gateway;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService sender;
+    private final Thread collector;
+    private final Object lock = new Object();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private volatile boolean closed;
+
+    public BatchingPayAdapter(PaymentGateway gateway, long window, TimeUnit unit, int maxBatch) {
+        if (gateway == null) throw new IllegalArgumentException("La pasarela no puede ser null.");
+        if (window < 0) throw new IllegalArgumentException("La ventana no puede ser negativa.");
+        if (maxBatch <= 0) throw new IllegalArgumentException("El lote debe tener al menos una solicitud.");
+        this.gateway = gateway;
+        this.windowNanos = unit.toNanos(window);
+        this.maxBatch = maxBatch;
+        this.sender = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "farma-gateway");
+            t.setDaemon(true);
+            return t;
+        });
+        this.collector = new Thread(this::collect, "farma-gateway-batcher");
+        collector.setDaemon(true);
+        collector.start();
+    }
+
+    public CompletableFuture<Boolean> authorize(String mode, double amount) {
+        PayMode m = PayMode.parse(mode);
+        if (m == null || amount < 0) return CompletableFuture.completedFuture(false);
+        return authorize(m, Money.of(amount));
+    }
+
+    public CompletableFuture<Boolean> authorize(PayMode mode, long amountCents) {
+        if (mode == null || amountCents < 0) return CompletableFuture.completedFuture(false);
+        Pending p = new Pending(mode, amountCents);
+        synchronized (lock) {
+            if (closed) return CompletableFuture.failedFuture(new IllegalStateException("El adaptador de pagos está cerrado."));
+            queue.add(p);
+        }
+        requests.increment();
+        return p.result;
+    }
+
+    /**
+     * Vista síncrona con un medio de pago fijo, para usarla donde se espera
+     * un PayMethodInterface. Cada pay espera la respuesta de su lote.
+     */
+    public PayMethodInterface forMode(PayMode mode) {
+        return new PayMethodInterface() {
+            @Override
+            public boolean pay(double amount) {
+                if (amount < 0) return false;
+                return authorize(mode, Money.of(amount)).join();
+            }
+
+            @Override
+            public String getName() { return mode.getDisplayName(); }
+        };
+    }
+
+    /**
+     * Deja de aceptar autorizaciones; las ya encoladas se envían igual.
+     */
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        collector.interrupt();
+    }
+
+    public long getBatchCount() { return batches.sum(); }
+
+    public long getRequestCount() { return requests.sum(); }
+
+    private void collect() {
+        Pending[] batch = new Pending[maxBatch];
+        while (!closed || !queue.isEmpty()) {
+            int n = 0;
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch[n++] = first;
+                long deadline = System.nanoTime() + windowNanos;
+                while (n < maxBatch) {
+                    long left = deadline - System.nanoTime();
+                    Pending p = (left > 0) ? queue.poll(left, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (p == null) break;
+                    batch[n++] = p;
+                }
+            } catch (InterruptedException e) {
+                Pending p;
+                while (n < maxBatch && (p = queue.poll()) != null) batch[n++] = p;
+            }
+            if (n > 0) dispatch(batch, n);
+        }
+        sender.shutdown();
+    }
+
+    private void dispatch(Pending[] batch, int n) {
+        PayMode[] modes = new PayMode[n];
+        long[] amounts = new long[n];
+        Pending[] owners = new Pending[n];
+        for (int i = 0; i < n; i++) {
+            owners[i] = batch[i];
+            modes[i] = batch[i].mode;
+            amounts[i] = batch[i].amountCents;
+            batch[i] = null;
+        }
+        batches.increment();
+        sender.execute(() -> send(modes, amounts, owners));
+    }
+
+    private void send(PayMode[] modes, long[] amounts, Pending[] owners) {
+        try {
+            boolean[] approved = gateway.authorize(modes, amounts, owners.length);
+            if (approved == null || approved.length < owners.length) {
+                throw new IllegalStateException("La pasarela respondió un lote incompleto.");
+            }
+            for (int i = 0; i < owners.length; i++) owners[i].result.complete(approved[i]);
+        } catch (RuntimeException e) {
+            for (Pending p : owners) p.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class Pending {
+        final PayMode mode;
+        final long amountCents;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Pending(PayMode mode, long amountCents) {
+            this.mode = mode;
+            this.amountCents = amountCents;
+        }
+    }
+}
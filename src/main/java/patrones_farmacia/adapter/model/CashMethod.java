@@ -1,25 +1,38 @@
 package patrones_farmacia.adapter.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
+
 public class CashMethod {
 
-    private double cashAvailable;
+    private final Balance cashAvailable;
 
     public CashMethod(double cashAvailable) {
-        this.cashAvailable = cashAvailable;
+        this.cashAvailable = new Balance(cashAvailable);
     }
 
     public boolean cashPay(double amount) {
-        if (cashAvailable >= amount) {
-            cashAvailable -= amount;
-            System.out.println("Pago en efectivo realizado. Cambio: $" + (cashAvailable));
+        return cashPayCents(Balance.toCents(amount));
+    }
+
+    public boolean cashPayCents(long amountCents) {
+        long left = cashAvailable.debit(amountCents);
+        if (left != Balance.INSUFFICIENT) {
+            if (EventLog.enabled()) EventLog.emit("Pago en efectivo realizado. Cambio: $" + (left / 100.0));
             return true;
         } else {
-            System.out.println("Fondos insuficientes en efectivo.");
+            EventLog.emit("Fondos insuficientes en efectivo.");
             return false;
         }
     }
 
+    public boolean refundCents(long amountCents) {
+        if (amountCents < 0) return false;
+        cashAvailable.credit(amountCents);
+        if (EventLog.enabled()) EventLog.emit("Reembolso en efectivo: $" + (amountCents / 100.0));
+        return true;
+    }
+
     public double getCashAvailable() {
-        return cashAvailable;
+        return cashAvailable.get();
     }
 }
\ No newline at end of file
@@ -1,32 +1,44 @@
 package patrones_farmacia.adapter.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
+
 public class CreditCardMethod {
 
     private String cardNumber;
     private String ownerName;
     private String cvv;
-    private double limit;
+    private final Balance limit;
 
     public CreditCardMethod(String cardNumber, String ownerName, String cvv, double limit) {
         this.cardNumber = cardNumber;
         this.ownerName = ownerName;
         this.cvv = cvv;
-        this.limit = limit;
+        this.limit = new Balance(limit);
     }
 
     public boolean makePayment(double amount) {
-        if (amount <= limit) {
-            limit -= amount;
-            System.out.println("Pago con tarjeta realizado correctamente.");
+        return makePaymentCents(Balance.toCents(amount));
+    }
+
+    public boolean makePaymentCents(long amountCents) {
+        if (limit.debit(amountCents) != Balance.INSUFFICIENT) {
+            EventLog.emit("Pago con tarjeta realizado correctamente.");
             return true;
         }
-        System.out.println("Límite de crédito insuficiente.");
+        EventLog.emit("Límite de crédito insuficiente.");
         return false;
     }
 
+    public boolean refundCents(long amountCents) {
+        if (amountCents < 0) return false;
+        limit.credit(amountCents);
+        if (EventLog.enabled()) EventLog.emit("Reembolso a la tarjeta realizado.");
+        return true;
+    }
+
     public String getOwnerName() { return ownerName; }
 
-    public double getLimit() { return limit; }
+    public double getLimit() { return limit.get(); }
 
     public String getCardNumber() { return cardNumber; }    
 
@@ -1,25 +1,37 @@
 package patrones_farmacia.adapter.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
+
 public class EWalletMethod {
 
     private String accountNumber;
-    private double balance;
+    private final Balance balance;
 
     public EWalletMethod(String accountNumber, double balance) {
         this.accountNumber = accountNumber;
-        this.balance = balance;
+        this.balance = new Balance(balance);
     }
 
     public boolean transferCash(double amount) {
-        if (balance >= amount) {
-            balance -= amount;
-            System.out.println("Transferencia desde E-Wallet exitosa.");
+        return transferCashCents(Balance.toCents(amount));
+    }
+
+    public boolean transferCashCents(long amountCents) {
+        if (balance.debit(amountCents) != Balance.INSUFFICIENT) {
+            EventLog.emit("Transferencia desde E-Wallet exitosa.");
             return true;
         }
-        System.out.println("Saldo insuficiente en billetera digital.");
+        EventLog.emit("Saldo insuficiente en billetera digital.");
         return false;
     }
 
+    public boolean refundCents(long amountCents) {
+        if (amountCents < 0) return false;
+        balance.credit(amountCents);
+        if (EventLog.enabled()) EventLog.emit("Reembolso a la E-Wallet realizado.");
+        return true;
+    }
+
     public String getAccountNumber() { return accountNumber; }
-    public double getBalance() { return balance; }
+    public double getBalance() { return balance.get(); }
 }
\ No newline at end of file
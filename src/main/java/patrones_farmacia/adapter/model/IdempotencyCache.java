@@ -0,0 +1,141 @@
+package patrones_farmacia.adapter.model;
+
+import patrones_farmacia.Singleton.model.EventLog;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Recuerda el resultado de cada pago por su clave de idempotencia durante
+ * un tiempo. Un reintento con la misma clave recibe el resultado guardado
+ * (o espera al pago que sigue en curso) en lugar de cobrar otra vez.
+ *
+ * Las entradas se guardan en orden de llegada y todas viven lo mismo, así
+ * que la más vieja es siempre la primera en vencer: al terminar cada pago se
+ * descartan las vencidas y, si se supera la capacidad, las más antiguas.
+ * Una entrada cuyo pago sigue en curso no se descarta ni vence, porque un
+ * reintento cobraría otra vez: se aparta de la fila y vuelve al final
+ * cuando el pago termina, sin frenar el descarte de las demás. Mientras
+ * haya pagos lentos la caché puede pasarse de la capacidad solo en esa
+ * cantidad. Un pago que lanza excepción no
+ * se guarda, para que el reintento pueda hacerse, y quienes lo esperaban
+ * reciben la misma excepción.
+ */
+public class IdempotencyCache {
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> arrivals = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+
+    public IdempotencyCache(int capacity, long ttl, TimeUnit unit) {
+        this(capacity, ttl, unit, System::nanoTime);
+    }
+
+    public IdempotencyCache(int capacity, long ttl, TimeUnit unit, LongSupplier nanoClock) {
+        if (capacity <= 0) throw new IllegalArgumentException("La capacidad debe ser mayor que cero.");
+        if (ttl <= 0) throw new IllegalArgumentException("La vigencia debe ser mayor que cero.");
+        this.capacity = capacity;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.clock = nanoClock;
+    }
+
+    /**
+     * Ejecuta el pago una sola vez por clave mientras la entrada siga
+     * vigente. fingerprint identifica el pago (modo y monto): reusar la
+     * clave para un pago distinto es un error del llamador.
+     */
+    public boolean execute(String key, long fingerprint, BooleanSupplier payment) {
+        if (key == null) throw new IllegalArgumentException("La clave no puede ser null.");
+        long now = clock.getAsLong();
+        Entry mine = new Entry(key, fingerprint, now + ttlNanos);
+        Entry winner = entries.compute(key, (k, old) -> (old != null && old.live(now)) ? old : mine);
+        if (winner != mine) {
+            if (winner.fingerprint != fingerprint) {
+                throw new IllegalArgumentException("La clave de idempotencia ya se usó con otro pago: " + key);
+            }
+            hits.increment();
+            if (EventLog.enabled()) EventLog.emit("Pago " + key + " ya procesado; se devuelve el resultado anterior.");
+            return await(winner);
+        }
+        arrivals.add(mine);
+        try {
+            boolean paid = payment.getAsBoolean();
+            mine.result.complete(paid);
+            return paid;
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (mine.unpark()) arrivals.add(mine);
+            trim(clock.getAsLong());
+        }
+    }
+
+    public int size() { return entries.size(); }
+
+    public long getHitCount() { return hits.sum(); }
+
+    private static boolean await(Entry entry) {
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    private void trim(long now) {
+        Entry head;
+        while ((head = arrivals.peek()) != null) {
+            if (entries.get(head.key) == head) {
+                if (!head.result.isDone()) {
+                    if (arrivals.remove(head)) park(head);
+                    continue;
+                }
+                if (!head.expired(now) && entries.size() <= capacity) return;
+            }
+            if (arrivals.remove(head)) entries.remove(head.key, head);
+        }
+    }
+
+    /**
+     * Saca de la fila una entrada en curso. Si el pago terminó mientras
+     * tanto, la devuelve al final; si no, lo hace execute al terminar.
+     */
+    private void park(Entry entry) {
+        entry.parked.set(true);
+        if (entry.result.isDone() && entry.unpark()) arrivals.add(entry);
+    }
+
+    private static final class Entry {
+        final String key;
+        final long fingerprint;
+        final long expiresAt;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        final AtomicBoolean parked = new AtomicBoolean();
+
+        Entry(String key, long fingerprint, long expiresAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean expired(long now) { return now - expiresAt >= 0; }
+
+        boolean live(long now) { return !expired(now) || !result.isDone(); }
+
+        boolean unpark() { return parked.compareAndSet(true, false); }
+    }
+}
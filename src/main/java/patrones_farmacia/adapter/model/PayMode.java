@@ -0,0 +1,32 @@
+package patrones_farmacia.adapter.model;
+
+/**
+ * Medios de pago que entiende AdapterPayMethod.
+ */
+public enum PayMode {
+    CASH("Efectivo"),
+    CREDIT("Tarjeta de Crédito"),
+    EWALLET("E-Wallet");
+
+    private static final PayMode[] VALUES = values();
+
+    private final String displayName;
+
+    PayMode(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() { return displayName; }
+
+    /**
+     * Resuelve el modo sin distinguir mayúsculas y sin crear objetos.
+     * Devuelve null si el texto es null o no corresponde a ningún modo.
+     */
+    public static PayMode parse(String mode) {
+        if (mode == null) return null;
+        for (PayMode m : VALUES) {
+            if (m.name().equalsIgnoreCase(mode)) return m;
+        }
+        return null;
+    }
+}
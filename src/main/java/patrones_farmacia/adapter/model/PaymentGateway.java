@@ -0,0 +1,9 @@
+package patrones_farmacia.adapter.model;
+
+/**
+ * Pasarela externa de pagos. Recibe un lote de autorizaciones en un solo
+ * viaje y responde una aprobación por solicitud, en el mismo orden.
+ */
+public interface PaymentGateway {
+    boolean[] authorize(PayMode[] modes, long[] amountsCents, int count);
+}
@@ -0,0 +1,67 @@
+package patrones_farmacia.adapter.model;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pasarela en memoria para pruebas y benchmarks: cada lote espera una
+ * latencia entre min y max, como un viaje de ida y vuelta a la red, y
+ * luego cobra cada solicitud contra las cuentas del adaptador. Opcionalmente
+ * limita cuántos viajes puede haber en curso, como las conexiones que una
+ * pasarela real concede a cada grupo de cajas.
+ */
+public class SimulatedGateway implements PaymentGateway {
+
+    private final AdapterPayMethod accounts;
+    private final long minLatencyNanos;
+    private final long maxLatencyNanos;
+    private final Semaphore connections;
+    private final LongAdder roundTrips = new LongAdder();
+
+    public SimulatedGateway(AdapterPayMethod accounts, long latency, TimeUnit unit) {
+        this(accounts, latency, latency, unit);
+    }
+
+    public SimulatedGateway(AdapterPayMethod accounts, long minLatency, long maxLatency, TimeUnit unit) {
+        this(accounts, minLatency, maxLatency, unit, 0);
+    }
+
+    /**
+     * Con connections mayor que 0, como mucho esa cantidad de lotes viajan a la vez.
+     */
+    public SimulatedGateway(AdapterPayMethod accounts, long minLatency, long maxLatency, TimeUnit unit, int connections) {
+        if (connections < 0) throw new IllegalArgumentException("Las conexiones no pueden ser negativas.");
+        if (accounts == null) throw new IllegalArgumentException("Las cuentas no pueden ser null.");
+        if (minLatency < 0 || maxLatency < minLatency) throw new IllegalArgumentException("Latencia inválida.");
+        this.accounts = accounts;
+        this.minLatencyNanos = unit.toNanos(minLatency);
+        this.maxLatencyNanos = unit.toNanos(maxLatency);
+        this.connections = (connections == 0) ? null : new Semaphore(connections, true);
+    }
+
+    @Override
+    public boolean[] authorize(PayMode[] modes, long[] amountsCents, int count) {
+        roundTrips.increment();
+        long latency = (maxLatencyNanos == minLatencyNanos)
+                ? minLatencyNanos
+                : ThreadLocalRandom.current().nextLong(minLatencyNanos, maxLatencyNanos + 1);
+        try {
+            if (connections != null) connections.acquire();
+            try {
+                if (latency > 0) TimeUnit.NANOSECONDS.sleep(latency);
+            } finally {
+                if (connections != null) connections.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new boolean[count];
+        }
+        boolean[] approved = new boolean[count];
+        for (int i = 0; i < count; i++) approved[i] = accounts.payCents(modes[i], amountsCents[i]);
+        return approved;
+    }
+
+    public long getRoundTrips() { return roundTrips.sum(); }
+}
@@ -1,5 +1,6 @@
 package patrones_farmacia.chainOfResponsability.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import patrones_farmacia.chainOfResponsability.model.BaseHandler;
 import patrones_farmacia.facade.model.Sale;
 import patrones_farmacia.adapter.model.PayMethodInterface;
@@ -16,9 +17,12 @@ public class PaymentValidationHandler extends BaseHandler {
     public boolean handle(Sale sale) {
         boolean success = payment.pay(sale.getTotal());
         if (!success) {
-            System.out.println("Pago fallido durante validación.");
+            EventLog.emit("Pago fallido durante validación.");
             return false;
         }
         return handleNext(sale);
     }
+
+    @Override
+    public boolean hasSideEffects() { return true; }
 }
\ No newline at end of file
@@ -1,34 +1,134 @@
 package patrones_farmacia.chainOfResponsability.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import patrones_farmacia.chainOfResponsability.model.BaseHandler;
+import patrones_farmacia.chainOfResponsability.model.InventoryIndex;
+import patrones_farmacia.facade.controller.InventSystem;
 import patrones_farmacia.facade.model.Sale;
+import patrones_farmacia.facade.model.StockReservation;
 import patrones_farmacia.factoryMethod.model.Medicine;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-
+/**
+ * Rechaza la venta si falta alguno de sus productos, avisando de todos los
+ * que faltan. Con un InventoryIndex cada venta cuesta O(ítems); con una
+ * lista se sigue leyendo la lista en vivo, pero en una sola pasada por venta.
+ * Con un InventSystem además aparta las unidades: las confirma si el resto
+ * de la cadena (el pago) aprueba la venta y las devuelve si la rechaza, por
+ * lo que debe ir antes del pago. Sin siguiente manejador, confirma enseguida.
+ * Como etapa de un ValidationPipeline o un ParallelHandler la reserva queda
+ * pendiente hasta que el orquestador llama a complete con el resultado.
+ */
 public class StockValidationHandler extends BaseHandler {
 
     private List<Medicine> inventory;
+    private InventoryIndex index;
+    private InventSystem invent;
+    private final Map<Sale, StockReservation> pending = new ConcurrentHashMap<>();
 
     public StockValidationHandler(List<Medicine> inventory) {
         this.inventory = inventory;
     }
 
+    public StockValidationHandler(InventoryIndex index) {
+        if (index == null) throw new IllegalArgumentException("El índice no puede ser null.");
+        this.index = index;
+    }
+
+    public StockValidationHandler(InventSystem invent) {
+        if (invent == null) throw new IllegalArgumentException("El inventario no puede ser null.");
+        this.invent = invent;
+    }
+
     @Override
     public boolean handle(Sale sale) {
-        for (Medicine med : sale.getItems()) {
-            boolean found = false;
-            for (Medicine inv : inventory) {
-                if (inv.getName().equalsIgnoreCase(med.getName())) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                System.out.println("No hay stock del producto " + med.getName());
-                return false;
+        if (invent != null) return reserveAndHandle(sale);
+        List<String> missing = findMissing(sale);
+        if (!missing.isEmpty()) {
+            if (EventLog.enabled()) {
+                for (String name : missing) EventLog.emit("No hay stock del producto " + name);
             }
+            return false;
         }
         return handleNext(sale);
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean hasSideEffects() { return invent != null; }
+
+    private boolean reserveAndHandle(Sale sale) {
+        StockReservation reservation = invent.reserve(sale);
+        if (!reservation.isSuccessful()) {
+            if (EventLog.enabled()) {
+                for (String name : reservation.getMissing()) EventLog.emit("No hay stock suficiente del producto " + name);
+            }
+            return false;
+        }
+        if (isDetached()) {
+            StockReservation previous = pending.put(sale, reservation);
+            if (previous != null) previous.release();
+            return true;
+        }
+        boolean approved = false;
+        try {
+            approved = handleNext(sale);
+            return approved;
+        } finally {
+            finish(reservation, approved);
+        }
+    }
+
+    @Override
+    public void complete(Sale sale, boolean approved) {
+        StockReservation reservation = pending.remove(sale);
+        if (reservation != null) finish(reservation, approved);
+    }
+
+    private static void finish(StockReservation reservation, boolean approved) {
+        if (approved) reservation.commit();
+        reservation.release();
+    }
+
+    /**
+     * Nombres de los productos de la venta que no están en el inventario, en orden.
+     */
+    public List<String> findMissing(Sale sale) {
+        List<Medicine> items = sale.getItems();
+        if (invent != null) {
+            Map<String, Integer> wanted = new HashMap<>();
+            List<String> missing = new ArrayList<>(0);
+            for (Medicine med : items) {
+                int units = wanted.merge(key(med.getName()), 1, Integer::sum);
+                if (units == invent.getAvailable(med.getName()) + 1) missing.add(med.getName());
+            }
+            return missing;
+        }
+        List<String> missing = new ArrayList<>(0);
+        if (index != null) {
+            for (Medicine med : items) {
+                if (!index.contains(med.getName())) missing.add(med.getName());
+            }
+            return missing;
+        }
+        Map<String, Boolean> wanted = new HashMap<>(items.size() * 2);
+        for (Medicine med : items) wanted.put(key(med.getName()), Boolean.FALSE);
+        int pending = wanted.size();
+        for (Medicine inv : inventory) {
+            if (pending == 0) break;
+            if (wanted.replace(key(inv.getName()), Boolean.FALSE, Boolean.TRUE)) pending--;
+        }
+        for (Medicine med : items) {
+            if (!wanted.get(key(med.getName()))) missing.add(med.getName());
+        }
+        return missing;
+    }
+
+    private static String key(String name) {
+        return (name == null) ? null : name.toLowerCase(Locale.ROOT);
+    }
+}
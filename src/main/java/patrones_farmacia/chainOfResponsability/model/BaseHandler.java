@@ -3,12 +3,39 @@ package patrones_farmacia.chainOfResponsability.model;
 import patrones_farmacia.facade.model.Sale;
 
 public abstract class BaseHandler implements Handler {
+    private static final ThreadLocal<Handler> DETACHED = new ThreadLocal<>();
+
     protected Handler next;
 
     @Override
     public void setNext(Handler next) { this.next = next; }
 
+    public Handler getNext() { return next; }
+
     protected boolean handleNext(Sale sale) {
+        if (DETACHED.get() == this) return true;
         return (next == null) || next.handle(sale);
     }
-}
\ No newline at end of file
+
+    /**
+     * Si el manejador corre como etapa suelta de un ValidationPipeline o un
+     * ParallelHandler, en cuyo caso handleNext no sigue la cadena.
+     */
+    protected boolean isDetached() { return DETACHED.get() == this; }
+
+    /**
+     * Ejecuta solo esta etapa: mientras dura, su handleNext devuelve true
+     * sin pasar a next. Quien armó la cadena no ve ningún cambio.
+     */
+    static boolean handleAlone(Handler stage, Sale sale) {
+        if (!(stage instanceof BaseHandler)) return stage.handle(sale);
+        Handler previous = DETACHED.get();
+        DETACHED.set(stage);
+        try {
+            return stage.handle(sale);
+        } finally {
+            if (previous == null) DETACHED.remove();
+            else DETACHED.set(previous);
+        }
+    }
+}
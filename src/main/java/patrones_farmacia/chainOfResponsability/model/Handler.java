@@ -5,4 +5,18 @@ import patrones_farmacia.facade.model.Sale;
 public interface Handler {
     void setNext(Handler next);
     boolean handle(Sale sale);
-}
\ No newline at end of file
+
+    /**
+     * Indica si la etapa cambia algo fuera de la venta (cobra, aparta stock,
+     * la da por completada). Un pipeline en modo COLLECT_ALL no la ejecuta
+     * después de un rechazo.
+     */
+    default boolean hasSideEffects() { return false; }
+
+    /**
+     * Aviso de quien orquesta las etapas (un ValidationPipeline o un
+     * ParallelHandler) con el resultado final de la venta, para confirmar o
+     * deshacer lo que la etapa dejó pendiente.
+     */
+    default void complete(Sale sale, boolean approved) { }
+}
@@ -0,0 +1,36 @@
+package patrones_farmacia.chainOfResponsability.model;
+
+import patrones_farmacia.Singleton.model.GlobalInvent;
+import patrones_farmacia.factoryMethod.model.Medicine;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Consulta de existencia de un medicamento por nombre, sin distinguir
+ * mayúsculas, en tiempo constante.
+ */
+@FunctionalInterface
+public interface InventoryIndex {
+
+    boolean contains(String name);
+
+    /**
+     * Índice armado una sola vez a partir de la colección; no ve cambios posteriores.
+     */
+    static InventoryIndex of(Collection<? extends Medicine> inventory) {
+        Set<String> names = new HashSet<>(inventory.size() * 2);
+        for (Medicine m : inventory) {
+            if (m != null && m.getName() != null) names.add(m.getName().toLowerCase(Locale.ROOT));
+        }
+        return name -> name != null && names.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Índice vivo sobre el inventario global.
+     */
+    static InventoryIndex of(GlobalInvent inventory) {
+        return name -> name != null && inventory.findMedicine(name) != null;
+    }
+}
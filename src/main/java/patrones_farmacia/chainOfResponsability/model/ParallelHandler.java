@@ -0,0 +1,165 @@
+package patrones_farmacia.chainOfResponsability.model;
+
+import patrones_farmacia.Singleton.model.EventLog;
+import patrones_farmacia.facade.model.Sale;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ejecuta a la vez validaciones que no dependen entre sí (stock, receta,
+ * fraude...) y espera sus resultados. Al primer rechazo cancela las que
+ * siguen corriendo y rechaza la venta; si todas aprueban, sigue la cadena.
+ * Una validación que lanza excepción o no termina dentro del plazo cuenta
+ * como rechazo. Ante un rechazo, los demás hijos reciben complete con
+ * false, también los cancelados que terminen más tarde, para que devuelvan
+ * lo que hayan apartado.
+ *
+ * Sin executor propio, todas las instancias comparten un pool acotado de
+ * hilos daemon. Un hijo que a su vez es un ParallelHandler ocupa un hilo
+ * mientras espera a los suyos; para anidar mucho conviene pasar un executor.
+ *
+ * Los hijos se ejecutan sueltos igual que en ValidationPipeline: su
+ * handleNext no sigue su propia cadena y no se les modifica el next.
+ */
+public class ParallelHandler extends BaseHandler {
+
+    private static final int SHARED_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final Handler[] children;
+    private final ExecutorService executor;
+    private long timeoutNanos;
+
+    public ParallelHandler(Handler... children) {
+        this(sharedExecutor(), children);
+    }
+
+    public ParallelHandler(ExecutorService executor, Handler... children) {
+        if (executor == null) throw new IllegalArgumentException("El executor no puede ser null.");
+        if (children == null || children.length == 0) throw new IllegalArgumentException("Se necesita al menos una validación.");
+        this.children = children.clone();
+        for (Handler h : this.children) {
+            if (h == null) throw new IllegalArgumentException("Las validaciones no pueden ser null.");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Pool que usan las instancias creadas sin executor. Sus hilos se
+     * retiran solos tras un rato sin trabajo.
+     */
+    public static ExecutorService sharedExecutor() {
+        return Shared.POOL;
+    }
+
+    /**
+     * Plazo máximo para el conjunto de validaciones; 0 espera sin límite.
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) throw new IllegalArgumentException("El plazo no puede ser negativo.");
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    @Override
+    public boolean handle(Sale sale) {
+        ExecutorCompletionService<Boolean> done = new ExecutorCompletionService<>(executor);
+        List<Future<Boolean>> running = new ArrayList<>(children.length);
+        AtomicBoolean aborted = new AtomicBoolean();
+        for (Handler h : children) {
+            running.add(done.submit(() -> {
+                try {
+                    return handleAlone(h, sale);
+                } finally {
+                    if (aborted.get()) h.complete(sale, false);
+                }
+            }));
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        boolean ok = true;
+        try {
+            for (int i = 0; i < children.length && ok; i++) {
+                Future<Boolean> f;
+                if (timeoutNanos > 0) {
+                    f = done.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (f == null) {
+                        EventLog.emit("Validación sin respuesta dentro del plazo.");
+                        ok = false;
+                        break;
+                    }
+                } else {
+                    f = done.take();
+                }
+                ok = passed(f);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ok = false;
+        } finally {
+            if (!ok) {
+                aborted.set(true);
+                for (Future<Boolean> f : running) f.cancel(true);
+                complete(sale, false);
+            }
+        }
+        if (isDetached()) return ok;
+        boolean approved = false;
+        try {
+            approved = ok && handleNext(sale);
+            return approved;
+        } finally {
+            complete(sale, approved);
+        }
+    }
+
+    /**
+     * Pasa el resultado final a los hijos. En una cadena común lo hace el
+     * propio manejador después de su next; como etapa de un pipeline, lo
+     * hace el pipeline.
+     */
+    @Override
+    public void complete(Sale sale, boolean approved) {
+        for (Handler h : children) h.complete(sale, approved);
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        for (Handler h : children) {
+            if (h.hasSideEffects()) return true;
+        }
+        return false;
+    }
+
+    public List<Handler> getChildren() { return List.of(children); }
+
+    private static boolean passed(Future<Boolean> f) throws InterruptedException {
+        try {
+            return Boolean.TRUE.equals(f.get());
+        } catch (ExecutionException e) {
+            if (EventLog.enabled()) EventLog.emit("Error en validación: " + e.getCause());
+            return false;
+        }
+    }
+
+    private static final class Shared {
+        static final ExecutorService POOL = newPool();
+
+        private static ExecutorService newPool() {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(SHARED_THREADS, SHARED_THREADS,
+                    30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r, "farma-validation");
+                        t.setDaemon(true);
+                        return t;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+}
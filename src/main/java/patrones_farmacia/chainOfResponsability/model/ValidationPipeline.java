@@ -0,0 +1,101 @@
+package patrones_farmacia.chainOfResponsability.model;
+
+import patrones_farmacia.facade.model.Sale;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cadena de validación aplanada en un arreglo inmutable. Se arma una vez y
+ * se reutiliza para todas las ventas: recorre las etapas en un bucle en
+ * lugar de saltar de un next a otro.
+ *
+ * Cualquier Handler existente sirve tal cual y no se modifica: mientras el
+ * pipeline ejecuta una etapa, su llamada a handleNext devuelve true y el
+ * pipeline decide qué etapa sigue. Un Handler que no extiende BaseHandler
+ * se toma como etapa final con sus propios sucesores.
+ *
+ * En modo COLLECT_ALL, después del primer rechazo solo se ejecutan las
+ * etapas sin efectos (ver Handler.hasSideEffects): se reportan todas las
+ * validaciones que fallan, pero no se cobra ni se aparta stock de una venta
+ * ya rechazada. Conviene poner esas validaciones antes del pago.
+ *
+ * Al terminar, cada etapa que se ejecutó recibe complete con el resultado
+ * final; así una reserva de stock se confirma solo si el pago posterior
+ * también aprobó la venta.
+ */
+public final class ValidationPipeline {
+
+    public enum Mode { SHORT_CIRCUIT, COLLECT_ALL }
+
+    private final Handler[] stages;
+    private final Mode mode;
+
+    private ValidationPipeline(Handler[] stages, Mode mode) {
+        if (mode == null) throw new IllegalArgumentException("El modo no puede ser null.");
+        this.stages = stages;
+        this.mode = mode;
+    }
+
+    public static ValidationPipeline compile(Handler head) {
+        return compile(head, Mode.SHORT_CIRCUIT);
+    }
+
+    /**
+     * Recorre la cadena que empieza en head y la convierte en un pipeline.
+     */
+    public static ValidationPipeline compile(Handler head, Mode mode) {
+        if (head == null) throw new IllegalArgumentException("La cadena no puede ser null.");
+        List<Handler> chain = new ArrayList<>();
+        for (Handler h = head; h != null; ) {
+            if (chain.contains(h)) throw new IllegalArgumentException("La cadena tiene un ciclo.");
+            chain.add(h);
+            h = (h instanceof BaseHandler) ? ((BaseHandler) h).getNext() : null;
+        }
+        return of(mode, chain.toArray(new Handler[0]));
+    }
+
+    public static ValidationPipeline of(Mode mode, Handler... stages) {
+        if (stages == null || stages.length == 0) throw new IllegalArgumentException("El pipeline necesita al menos una etapa.");
+        Handler[] copy = stages.clone();
+        for (Handler h : copy) {
+            if (h == null) throw new IllegalArgumentException("Las etapas no pueden ser null.");
+        }
+        return new ValidationPipeline(copy, mode);
+    }
+
+    public boolean handle(Sale sale) {
+        return validate(sale).isValid();
+    }
+
+    /**
+     * Como handle, pero indica qué etapas rechazaron la venta. En modo
+     * SHORT_CIRCUIT hay como mucho un rechazo.
+     */
+    public ValidationResult validate(Sale sale) {
+        List<Handler> failures = null;
+        int last = -1;
+        boolean approved = false;
+        try {
+            for (int i = 0; i < stages.length; i++) {
+                Handler stage = stages[i];
+                if (failures != null && stage.hasSideEffects()) continue;
+                last = i;
+                if (!BaseHandler.handleAlone(stage, sale)) {
+                    if (failures == null) failures = new ArrayList<>(2);
+                    failures.add(stage);
+                    if (mode == Mode.SHORT_CIRCUIT) break;
+                }
+            }
+            approved = (failures == null);
+        } finally {
+            for (int i = 0; i <= last; i++) stages[i].complete(sale, approved);
+        }
+        return approved ? ValidationResult.valid() : ValidationResult.rejected(failures);
+    }
+
+    public Mode getMode() { return mode; }
+
+    public int size() { return stages.length; }
+
+    public List<Handler> getStages() { return List.of(stages); }
+}
@@ -0,0 +1,36 @@
+package patrones_farmacia.chainOfResponsability.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de pasar una venta por un ValidationPipeline: si fue válida y
+ * qué manejadores la rechazaron, en el orden en que se ejecutaron.
+ */
+public class ValidationResult {
+
+    private static final ValidationResult VALID = new ValidationResult(Collections.emptyList());
+
+    private final List<Handler> failures;
+
+    private ValidationResult(List<Handler> failures) {
+        this.failures = failures;
+    }
+
+    public static ValidationResult valid() { return VALID; }
+
+    public static ValidationResult rejected(List<Handler> failures) {
+        return failures.isEmpty() ? VALID : new ValidationResult(Collections.unmodifiableList(failures));
+    }
+
+    public boolean isValid() { return failures.isEmpty(); }
+
+    public List<Handler> getFailures() { return failures; }
+
+    public boolean rejectedBy(Class<? extends Handler> type) {
+        for (Handler h : failures) {
+            if (type.isInstance(h)) return true;
+        }
+        return false;
+    }
+}
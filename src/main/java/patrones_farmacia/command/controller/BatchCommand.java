@@ -0,0 +1,96 @@
+package patrones_farmacia.command.controller;
+
+import patrones_farmacia.command.model.Command;
+import patrones_farmacia.command.model.SaleReceiver;
+import patrones_farmacia.facade.model.Sale;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lote de comandos que se ejecuta y se deshace como una unidad. Los
+ * registros de venta consecutivos sobre el mismo receptor se aplican en una
+ * sola llamada, con un único aviso. Si un comando falla, se deshacen los
+ * ya ejecutados (también los de un tramo de registros aplicado a medias)
+ * y se relanza el error; el invocador no lo anota en el diario.
+ */
+public class BatchCommand implements Command {
+
+    private final Command[] commands;
+
+    public BatchCommand(List<? extends Command> commands) {
+        if (commands == null) throw new IllegalArgumentException("La lista de comandos no puede ser null.");
+        this.commands = commands.toArray(new Command[0]);
+        for (Command c : this.commands) {
+            if (c == null) throw new IllegalArgumentException("El lote no puede contener comandos null.");
+        }
+    }
+
+    @Override
+    public void execute() {
+        int done = 0;
+        try {
+            while (done < commands.length) {
+                int end = registerRunEnd(done);
+                if (end - done > 1) {
+                    SaleReceiver receiver = ((RegisterSaleCommand) commands[done]).getReceiver();
+                    List<Sale> sales = new ArrayList<>(end - done);
+                    for (int i = done; i < end; i++) sales.add(((RegisterSaleCommand) commands[i]).getSale());
+                    receiver.registerSales(sales);
+                    done = end;
+                } else {
+                    commands[done].execute();
+                    done++;
+                }
+            }
+        } catch (RuntimeException e) {
+            undo(done);
+            throw e;
+        }
+    }
+
+    @Override
+    public void undo() {
+        undo(commands.length);
+    }
+
+    public int size() { return commands.length; }
+
+    public List<Command> getCommands() { return List.of(commands); }
+
+    private void undo(int executed) {
+        int i = executed - 1;
+        while (i >= 0) {
+            int start = registerRunStart(i);
+            if (i - start > 0) {
+                SaleReceiver receiver = ((RegisterSaleCommand) commands[i]).getReceiver();
+                List<Sale> sales = new ArrayList<>(i - start + 1);
+                for (int j = i; j >= start; j--) sales.add(((RegisterSaleCommand) commands[j]).getSale());
+                receiver.unregisterSales(sales);
+                i = start - 1;
+            } else {
+                commands[i].undo();
+                i--;
+            }
+        }
+    }
+
+    private int registerRunEnd(int from) {
+        SaleReceiver receiver = receiverOf(commands[from]);
+        int end = from + 1;
+        if (receiver == null) return end;
+        while (end < commands.length && receiverOf(commands[end]) == receiver) end++;
+        return end;
+    }
+
+    private int registerRunStart(int to) {
+        SaleReceiver receiver = receiverOf(commands[to]);
+        int start = to;
+        if (receiver == null) return start;
+        while (start > 0 && receiverOf(commands[start - 1]) == receiver) start--;
+        return start;
+    }
+
+    private static SaleReceiver receiverOf(Command c) {
+        return (c instanceof RegisterSaleCommand) ? ((RegisterSaleCommand) c).getReceiver() : null;
+    }
+}
@@ -1,5 +1,6 @@
 package patrones_farmacia.command.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import patrones_farmacia.command.model.Command;
 import patrones_farmacia.command.model.SaleReceiver;
 
@@ -20,6 +21,10 @@ public class CancelSaleCommand implements Command {
 
     @Override
     public void undo() {
-        System.out.println("No se puede deshacer una cancelación de venta.");
+        EventLog.emit("No se puede deshacer una cancelación de venta.");
     }
+
+    public SaleReceiver getReceiver() { return receiver; }
+
+    public String getSaleId() { return saleId; }
 }
\ No newline at end of file
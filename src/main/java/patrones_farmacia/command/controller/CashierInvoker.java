@@ -1,28 +1,120 @@
 package patrones_farmacia.command.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
+import patrones_farmacia.command.model.BatchResult;
 import patrones_farmacia.command.model.Command;
-import java.util.ArrayList;
+import patrones_farmacia.command.model.CommandHistory;
 import java.util.List;
 
+/**
+ * Ejecuta comandos de caja y guarda los últimos en un historial acotado.
+ * Con un HistorySpill, los comandos que salen del historial se guardan en
+ * disco y se pueden seguir deshaciendo; sin él, simplemente se descartan.
+ * Con un CommandJournal, cada comando (y cada deshacer) queda en el diario
+ * antes de que executeCommand o undoLast vuelvan. Solo se anota lo que se
+ * ejecutó sin error, así replay no repite comandos que fallaron; y si el
+ * diario no puede guardarlo, el diario revierte el cambio (deshace el
+ * comando, o vuelve a aplicar el deshacer) antes de que se relance el
+ * error, de modo que el receptor y el historial nunca van por delante del
+ * diario. Dentro de una caja los comandos esperan su volcado de a uno; los
+ * volcados se agrupan entre cajas que comparten el diario.
+ */
 public class CashierInvoker {
 
-    private List<Command> history = new ArrayList<>();
+    public static final int DEFAULT_HISTORY_DEPTH = 1024;
 
-    public void executeCommand(Command c) {
-        c.execute();
-        history.add(c);
+    private final CommandHistory history;
+    private final HistorySpill spill;
+    private CommandJournal journal;
+    private long discarded;
+
+    public CashierInvoker() {
+        this(DEFAULT_HISTORY_DEPTH);
+    }
+
+    public CashierInvoker(int historyDepth) {
+        this(historyDepth, null);
+    }
+
+    public CashierInvoker(int historyDepth, HistorySpill spill) {
+        this.history = new CommandHistory(historyDepth);
+        this.spill = spill;
+    }
+
+    /**
+     * Activa el diario de comandos. Para recuperar el estado tras una caída,
+     * llamar antes a journal.replay(receptor) con el receptor vacío; el
+     * historial de deshacer no se reconstruye.
+     */
+    public synchronized void setJournal(CommandJournal journal) {
+        this.journal = journal;
+    }
+
+    public synchronized CommandJournal getJournal() { return journal; }
+
+    public synchronized void executeCommand(Command c) {
+        CommandJournal log = journal;
+        if (log != null && CommandCodec.supports(c)) {
+            log.awaitDurable(log.record(CommandJournal.EXECUTE, c, c::execute, c::undo));
+        } else {
+            c.execute();
+        }
+        Command evicted = history.push(c);
+        if (evicted != null && (spill == null || !spill.push(evicted))) discarded++;
     }
 
-    public void undoLast() {
-        if (!history.isEmpty()) {
-            Command last = history.remove(history.size() - 1);
+    /**
+     * Ejecuta los comandos como una sola operación: ocupan una entrada del
+     * historial (deshacer revierte el lote completo), van al diario en un
+     * único registro y generan un único aviso con el tiempo del lote.
+     */
+    public BatchResult executeBatch(List<? extends Command> commands) {
+        long start = System.nanoTime();
+        BatchCommand batch = new BatchCommand(commands);
+        executeCommand(batch);
+        BatchResult result = new BatchResult(batch.size(), System.nanoTime() - start);
+        if (EventLog.enabled()) EventLog.emit(result.toString());
+        return result;
+    }
+
+    public synchronized void undoLast() {
+        boolean fromSpill = false;
+        Command last = history.pop();
+        if (last == null && spill != null) {
+            last = spill.pop();
+            fromSpill = true;
+        }
+        if (last == null) {
+            EventLog.emit("No hay operaciones para deshacer.");
+            return;
+        }
+        CommandJournal log = journal;
+        if (log == null || !CommandCodec.supports(last)) {
             last.undo();
         } else {
-            System.out.println("No hay operaciones para deshacer.");
+            Command undone = last;
+            try {
+                log.awaitDurable(log.record(CommandJournal.UNDO, undone, undone::undo, undone::execute));
+            } catch (RuntimeException e) {
+                if (!fromSpill) history.push(last);
+                else if (!spill.push(last)) discarded++;
+                throw e;
+            }
         }
     }
 
-    public void showHistory() {
-        System.out.println("Historial de operaciones ejecutadas: " + history.size());
+    public synchronized void showHistory() {
+        if (EventLog.enabled()) EventLog.emit("Historial de operaciones ejecutadas: " + getHistorySize());
+    }
+
+    /**
+     * Comandos que todavía se pueden deshacer, en memoria y en disco.
+     */
+    public synchronized int getHistorySize() {
+        return history.size() + ((spill == null) ? 0 : spill.size());
     }
-}
\ No newline at end of file
+
+    public int getHistoryDepth() { return history.capacity(); }
+
+    public synchronized long getDiscardedCount() { return discarded; }
+}
@@ -0,0 +1,125 @@
+package patrones_farmacia.command.controller;
+
+import patrones_farmacia.command.model.Command;
+import patrones_farmacia.command.model.SaleReceiver;
+import patrones_farmacia.facade.model.Sale;
+import patrones_farmacia.factoryMethod.model.BrandMedicine;
+import patrones_farmacia.factoryMethod.model.ControlledMedicine;
+import patrones_farmacia.factoryMethod.model.GenericMedicine;
+import patrones_farmacia.factoryMethod.model.Medicine;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codificación binaria compacta de los comandos de caja. Solo se conocen
+ * RegisterSaleCommand, CancelSaleCommand, ReturnProductCommand y lotes de
+ * ellos; al decodificar, los comandos quedan ligados al receptor indicado.
+ */
+public final class CommandCodec {
+
+    static final byte REGISTER = 1;
+    static final byte CANCEL = 2;
+    static final byte RETURN = 3;
+    static final byte BATCH = 4;
+
+    private static final byte GENERIC = 0;
+    private static final byte BRAND = 1;
+    private static final byte CONTROLLED = 2;
+
+    private CommandCodec() {}
+
+    public static boolean supports(Command c) {
+        if (c instanceof BatchCommand) {
+            for (Command inner : ((BatchCommand) c).getCommands()) {
+                if (!supports(inner)) return false;
+            }
+            return true;
+        }
+        return c instanceof RegisterSaleCommand
+                || c instanceof CancelSaleCommand
+                || c instanceof ReturnProductCommand;
+    }
+
+    public static void write(Command c, DataOutput out) throws IOException {
+        if (c instanceof RegisterSaleCommand) {
+            Sale sale = ((RegisterSaleCommand) c).getSale();
+            out.writeByte(REGISTER);
+            writeString(out, sale.getId());
+            writeString(out, sale.getClient());
+            out.writeInt(sale.getItems().size());
+            for (Medicine m : sale.getItems()) writeMedicine(out, m);
+        } else if (c instanceof CancelSaleCommand) {
+            out.writeByte(CANCEL);
+            writeString(out, ((CancelSaleCommand) c).getSaleId());
+        } else if (c instanceof ReturnProductCommand) {
+            ReturnProductCommand r = (ReturnProductCommand) c;
+            out.writeByte(RETURN);
+            writeString(out, r.getSaleId());
+            writeMedicine(out, r.getProduct());
+        } else if (c instanceof BatchCommand) {
+            List<Command> inner = ((BatchCommand) c).getCommands();
+            out.writeByte(BATCH);
+            out.writeInt(inner.size());
+            for (Command i : inner) write(i, out);
+        } else {
+            throw new IllegalArgumentException("Comando no serializable: " + c.getClass().getName());
+        }
+    }
+
+    public static Command read(DataInput in, SaleReceiver receiver) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case REGISTER: {
+                Sale sale = new Sale(readString(in), readString(in));
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) sale.addMedicine(readMedicine(in));
+                return new RegisterSaleCommand(receiver, sale);
+            }
+            case CANCEL:
+                return new CancelSaleCommand(receiver, readString(in));
+            case RETURN:
+                return new ReturnProductCommand(receiver, readString(in), readMedicine(in));
+            case BATCH: {
+                int n = in.readInt();
+                List<Command> inner = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) inner.add(read(in, receiver));
+                return new BatchCommand(inner);
+            }
+            default:
+                throw new IOException("Tipo de comando desconocido: " + tag);
+        }
+    }
+
+    private static void writeMedicine(DataOutput out, Medicine m) throws IOException {
+        if (m instanceof ControlledMedicine || (m != null && m.isControlled())) out.writeByte(CONTROLLED);
+        else if (m instanceof BrandMedicine) out.writeByte(BRAND);
+        else out.writeByte(GENERIC);
+        writeString(out, (m == null) ? null : m.getName());
+        writeString(out, (m == null) ? null : m.getLaboratory());
+        out.writeDouble((m == null) ? 0 : m.getPrice());
+    }
+
+    private static Medicine readMedicine(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        String name = readString(in);
+        String lab = readString(in);
+        double price = in.readDouble();
+        switch (kind) {
+            case CONTROLLED: return new ControlledMedicine(name, lab, price);
+            case BRAND: return new BrandMedicine(name, lab, price);
+            default: return new GenericMedicine(name, lab, price);
+        }
+    }
+
+    private static void writeString(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
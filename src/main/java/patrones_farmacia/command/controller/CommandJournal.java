@@ -0,0 +1,336 @@
+package patrones_farmacia.command.controller;
+
+import patrones_farmacia.command.model.Command;
+import patrones_farmacia.command.model.SaleReceiver;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.zip.CRC32;
+
+/**
+ * Diario binario de solo anexado para los comandos de caja. Cada registro
+ * es [longitud][operación + comando][crc32]. append no vuelve hasta que el
+ * registro está en disco, pero los hilos que escriben a la vez comparten
+ * un mismo volcado: el primero que llega escribe y sincroniza todo lo
+ * pendiente y los demás esperan su turno (group commit).
+ *
+ * Si una escritura falla, el archivo se recorta al último registro
+ * confirmado y el diario queda inutilizable: fallan todos los que esperaban
+ * ese lote y cualquier registro posterior, para que ninguno se dé por
+ * guardado sin estarlo. Los cambios que entraron con record se revierten
+ * en ese momento, del más nuevo al más viejo.
+ *
+ * Varios invocadores pueden compartir un diario: record aplica el cambio y
+ * toma su secuencia bajo el mismo bloqueo, así el orden del archivo es el
+ * orden en que los cambios tocaron el receptor aunque vengan de cajas
+ * distintas. Solo se serializa la aplicación; los volcados se siguen
+ * agrupando.
+ */
+public class CommandJournal implements Closeable {
+
+    static final byte EXECUTE = 1;
+    static final byte UNDO = 2;
+    private static final Runnable NOTHING = () -> { };
+
+    private final FileChannel channel;
+    private final boolean fsync;
+    private final Object lock = new Object();
+
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(4096);
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream(4096);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private final ArrayDeque<Runnable> unconfirmed = new ArrayDeque<>();
+
+    private long appended;
+    private long durable;
+    private long durableEnd;
+    private boolean flushing;
+    private long syncs;
+    private IOException failure;
+
+    public CommandJournal(Path path) {
+        this(path, true);
+    }
+
+    /**
+     * Con fsync en false los registros se escriben al archivo pero no se
+     * fuerzan al disco; solo sobreviven a una caída del proceso, no del equipo.
+     */
+    public CommandJournal(Path path, boolean fsync) {
+        if (path == null) throw new IllegalArgumentException("La ruta no puede ser null.");
+        this.fsync = fsync;
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long validEnd = scan(null, null);
+            if (channel.size() > validEnd) channel.truncate(validEnd);
+            channel.position(validEnd);
+            this.durableEnd = validEnd;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el diario de comandos: " + path, e);
+        }
+    }
+
+    public void append(Command c) {
+        awaitDurable(enqueue(EXECUTE, c));
+    }
+
+    public void appendUndo(Command c) {
+        awaitDurable(enqueue(UNDO, c));
+    }
+
+    /**
+     * Vuelve a aplicar sobre el receptor todos los registros completos del
+     * diario, en orden. Un registro final truncado o corrupto se ignora.
+     * Devuelve el número de registros aplicados.
+     */
+    public int replay(SaleReceiver receiver) {
+        if (receiver == null) throw new IllegalArgumentException("El receptor no puede ser null.");
+        synchronized (lock) {
+            try {
+                int[] applied = new int[1];
+                scan((op, c) -> {
+                    if (op == UNDO) c.undo(); else c.execute();
+                    applied[0]++;
+                }, receiver);
+                return applied[0];
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el diario de comandos.", e);
+            }
+        }
+    }
+
+    public long getAppendedCount() {
+        synchronized (lock) {
+            return appended;
+        }
+    }
+
+    /**
+     * Número de volcados a disco; con escrituras concurrentes es menor que getAppendedCount().
+     */
+    public long getSyncCount() {
+        synchronized (lock) {
+            return syncs;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            while (flushing) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (failure == null) {
+                ByteBuffer buf = ByteBuffer.wrap(pending.toByteArray());
+                while (buf.hasRemaining()) channel.write(buf);
+                pending.reset();
+                durable = appended;
+                unconfirmed.clear();
+                if (fsync) channel.force(false);
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Codifica el registro en el lote pendiente y devuelve su número de
+     * secuencia, sin esperar a que llegue al disco.
+     */
+    long enqueue(byte op, Command c) {
+        checkSerializable(c);
+        synchronized (lock) {
+            checkUsable();
+            return write(op, c, NOTHING);
+        }
+    }
+
+    /**
+     * Aplica el cambio y encola su registro en la misma sección crítica.
+     * Si después el lote no llega al disco, revert se ejecuta junto con los
+     * de los demás registros sin confirmar; por eso, si record o
+     * awaitDurable lanzan, el cambio ya está revertido (o nunca se aplicó).
+     */
+    long record(byte op, Command c, Runnable apply, Runnable revert) {
+        checkSerializable(c);
+        synchronized (lock) {
+            checkUsable();
+            apply.run();
+            try {
+                return write(op, c, revert);
+            } catch (RuntimeException e) {
+                revert.run();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Espera a que el registro con esa secuencia esté en disco, volcando
+     * el lote pendiente si nadie más lo está haciendo. Solo vuelve cuando
+     * el registro está confirmado o el diario falló; una interrupción se
+     * conserva pero no corta la espera, porque el registro podría quedar
+     * guardado después de que el llamador lo diera por perdido.
+     */
+    void awaitDurable(long seq) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                ByteArrayOutputStream batch;
+                long target;
+                synchronized (lock) {
+                    if (durable >= seq) return;
+                    checkUsable();
+                    if (flushing) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                        continue;
+                    }
+                    flushing = true;
+                    batch = pending;
+                    pending = spare;
+                    spare = batch;
+                    target = appended;
+                }
+                try {
+                    ByteBuffer buf = ByteBuffer.wrap(batch.toByteArray());
+                    while (buf.hasRemaining()) channel.write(buf);
+                    if (fsync) channel.force(false);
+                } catch (IOException e) {
+                    synchronized (lock) {
+                        failure = e;
+                        batch.reset();
+                        pending.reset();
+                        discardTail();
+                        revertUnconfirmed();
+                        flushing = false;
+                        lock.notifyAll();
+                    }
+                    throw new UncheckedIOException("No se pudo escribir el diario de comandos.", e);
+                }
+                synchronized (lock) {
+                    durableEnd += batch.size();
+                    batch.reset();
+                    for (long i = durable; i < target; i++) unconfirmed.pollFirst();
+                    durable = target;
+                    syncs++;
+                    flushing = false;
+                    lock.notifyAll();
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void checkSerializable(Command c) {
+        if (!CommandCodec.supports(c)) {
+            throw new IllegalArgumentException("Comando no serializable: " + c.getClass().getName());
+        }
+    }
+
+    private long write(byte op, Command c, Runnable revert) {
+        try {
+            record.reset();
+            recordOut.writeByte(op);
+            CommandCodec.write(c, recordOut);
+            crc.reset();
+            crc.update(record.toByteArray());
+            DataOutputStream out = new DataOutputStream(pending);
+            out.writeInt(record.size());
+            record.writeTo(pending);
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo codificar el comando.", e);
+        }
+        unconfirmed.addLast(revert);
+        return ++appended;
+    }
+
+    /**
+     * Deshace los cambios de los registros que se perdieron con el lote
+     * fallido, del más nuevo al más viejo, para que el receptor vuelva al
+     * estado que describe el diario.
+     */
+    private void revertUnconfirmed() {
+        Runnable revert;
+        while ((revert = unconfirmed.pollLast()) != null) {
+            try {
+                revert.run();
+            } catch (RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("El diario de comandos falló en una escritura anterior.", failure);
+        }
+    }
+
+    /**
+     * Quita del archivo lo que haya quedado escrito a medias del lote
+     * fallido, para no dejar un registro parcial en medio del diario.
+     */
+    private void discardTail() {
+        try {
+            channel.truncate(durableEnd);
+            channel.position(durableEnd);
+            if (fsync) channel.force(false);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(byte op, Command c);
+    }
+
+    private long scan(RecordVisitor visitor, SaleReceiver receiver) throws IOException {
+        long size = channel.size();
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        while (pos + Integer.BYTES <= size) {
+            header.clear();
+            if (channel.read(header, pos) < Integer.BYTES) break;
+            int length = header.getInt(0);
+            if (length <= 0 || pos + Integer.BYTES + length + Integer.BYTES > size) break;
+            ByteBuffer body = ByteBuffer.allocate(length + Integer.BYTES);
+            channel.read(body, pos + Integer.BYTES);
+            byte[] payload = new byte[length];
+            body.flip();
+            body.get(payload);
+            int stored = body.getInt();
+            CRC32 check = new CRC32();
+            check.update(payload);
+            if ((int) check.getValue() != stored) break;
+            if (visitor != null) {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+                byte op = in.readByte();
+                visitor.visit(op, CommandCodec.read(in, receiver));
+            }
+            pos += Integer.BYTES + length + Integer.BYTES;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,91 @@
+package patrones_farmacia.command.controller;
+
+import patrones_farmacia.command.model.Command;
+import patrones_farmacia.command.model.SaleReceiver;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Pila en disco para los comandos que salen del historial en memoria. Cada
+ * registro se guarda codificado seguido de su longitud, de modo que el
+ * último se lee y se descarta desde el final del archivo. Los comandos
+ * recuperados quedan ligados al receptor dado al abrir la pila.
+ */
+public class HistorySpill implements Closeable {
+
+    private final RandomAccessFile file;
+    private final SaleReceiver receiver;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream encoder = new DataOutputStream(buffer);
+    private int size;
+
+    public HistorySpill(Path path, SaleReceiver receiver) {
+        if (path == null) throw new IllegalArgumentException("La ruta no puede ser null.");
+        if (receiver == null) throw new IllegalArgumentException("El receptor no puede ser null.");
+        this.receiver = receiver;
+        try {
+            this.file = new RandomAccessFile(path.toFile(), "rw");
+            file.setLength(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el historial en disco: " + path, e);
+        }
+    }
+
+    /**
+     * Guarda el comando. Devuelve false si su tipo no se puede codificar.
+     */
+    public synchronized boolean push(Command c) {
+        if (!CommandCodec.supports(c)) return false;
+        try {
+            buffer.reset();
+            CommandCodec.write(c, encoder);
+            encoder.writeInt(buffer.size());
+            file.seek(file.length());
+            file.write(buffer.toByteArray());
+            size++;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el historial en disco.", e);
+        }
+    }
+
+    public synchronized Command pop() {
+        if (size == 0) return null;
+        try {
+            long end = file.length();
+            file.seek(end - Integer.BYTES);
+            int length = file.readInt();
+            long start = end - Integer.BYTES - length;
+            byte[] record = new byte[length];
+            file.seek(start);
+            file.readFully(record);
+            file.setLength(start);
+            size--;
+            return CommandCodec.read(new DataInputStream(new ByteArrayInputStream(record)), receiver);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el historial en disco.", e);
+        }
+    }
+
+    public synchronized int size() { return size; }
+
+    public synchronized long sizeInBytes() {
+        try {
+            return file.length();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        file.close();
+    }
+}
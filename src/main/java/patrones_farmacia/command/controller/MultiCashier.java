@@ -0,0 +1,55 @@
+package patrones_farmacia.command.controller;
+
+import patrones_farmacia.command.model.Command;
+import patrones_farmacia.command.model.SaleReceiver;
+
+/**
+ * Varias cajas sobre un mismo receptor de ventas. Cada caja tiene su propio
+ * CashierInvoker, así que deshacer solo afecta a sus comandos y las cajas
+ * no comparten ningún bloqueo salvo los del receptor, que son por venta, y
+ * el del diario si lo comparten.
+ */
+public class MultiCashier {
+
+    private final SaleReceiver receiver;
+    private final CashierInvoker[] tills;
+
+    public MultiCashier(SaleReceiver receiver, int tillCount) {
+        this(receiver, tillCount, CashierInvoker.DEFAULT_HISTORY_DEPTH);
+    }
+
+    public MultiCashier(SaleReceiver receiver, int tillCount, int historyDepth) {
+        if (receiver == null) throw new IllegalArgumentException("El receptor no puede ser null.");
+        if (tillCount <= 0) throw new IllegalArgumentException("Debe haber al menos una caja.");
+        this.receiver = receiver;
+        this.tills = new CashierInvoker[tillCount];
+        for (int i = 0; i < tillCount; i++) tills[i] = new CashierInvoker(historyDepth);
+    }
+
+    public CashierInvoker till(int till) {
+        if (till < 0 || till >= tills.length) throw new IllegalArgumentException("Caja inexistente: " + till);
+        return tills[till];
+    }
+
+    public void executeCommand(int till, Command c) {
+        till(till).executeCommand(c);
+    }
+
+    public void undoLast(int till) {
+        till(till).undoLast();
+    }
+
+    /**
+     * Usa un mismo diario para todas las cajas. El diario ordena los cambios
+     * de todas ellas (ver CommandJournal.record), así replay los repite en
+     * el mismo orden en que tocaron el receptor; sus volcados se agrupan
+     * entre ellas.
+     */
+    public void setJournal(CommandJournal journal) {
+        for (CashierInvoker t : tills) t.setJournal(journal);
+    }
+
+    public SaleReceiver getReceiver() { return receiver; }
+
+    public int getTillCount() { return tills.length; }
+}
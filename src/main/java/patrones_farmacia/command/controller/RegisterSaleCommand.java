@@ -21,6 +21,10 @@ public class RegisterSaleCommand implements Command {
 
     @Override
     public void undo() {
-        receiver.cancelSale(sale.getId());
+        receiver.cancelSale(sale);
     }
+
+    public SaleReceiver getReceiver() { return receiver; }
+
+    public Sale getSale() { return sale; }
 }
\ No newline at end of file
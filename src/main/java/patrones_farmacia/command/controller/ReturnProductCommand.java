@@ -1,5 +1,6 @@
 package patrones_farmacia.command.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import patrones_farmacia.command.model.Command;
 import patrones_farmacia.command.model.SaleReceiver;
 import patrones_farmacia.factoryMethod.model.Medicine;
@@ -23,6 +24,12 @@ public class ReturnProductCommand implements Command {
 
     @Override
     public void undo() {
-        System.out.println("No se puede deshacer una devolución de producto.");
+        EventLog.emit("No se puede deshacer una devolución de producto.");
     }
+
+    public SaleReceiver getReceiver() { return receiver; }
+
+    public String getSaleId() { return saleId; }
+
+    public Medicine getProduct() { return product; }
 }
\ No newline at end of file
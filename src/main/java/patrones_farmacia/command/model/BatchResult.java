@@ -0,0 +1,32 @@
+package patrones_farmacia.command.model;
+
+import java.util.Locale;
+
+/**
+ * Resultado de ejecutar un lote de comandos: cuántos y cuánto tardó.
+ */
+public class BatchResult {
+
+    private final int commandCount;
+    private final long elapsedNanos;
+
+    public BatchResult(int commandCount, long elapsedNanos) {
+        this.commandCount = commandCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getCommandCount() { return commandCount; }
+
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public double getElapsedMillis() { return elapsedNanos / 1_000_000.0; }
+
+    public double getNanosPerCommand() {
+        return (commandCount == 0) ? 0 : (double) elapsedNanos / commandCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Lote de %d comandos en %.3f ms", commandCount, getElapsedMillis());
+    }
+}
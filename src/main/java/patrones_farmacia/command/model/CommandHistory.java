@@ -0,0 +1,57 @@
+package patrones_farmacia.command.model;
+
+/**
+ * Historial de deshacer con capacidad fija sobre un arreglo circular.
+ * Apilar y desapilar no reservan memoria; al llenarse, el comando más
+ * antiguo se devuelve a quien apila para que decida qué hacer con él.
+ */
+public class CommandHistory {
+
+    private final Command[] ring;
+    private int head;
+    private int size;
+
+    public CommandHistory(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("La capacidad debe ser positiva.");
+        this.ring = new Command[capacity];
+    }
+
+    /**
+     * Apila el comando. Devuelve el comando desalojado, o null si había espacio.
+     */
+    public Command push(Command c) {
+        Command evicted = null;
+        if (size == ring.length) {
+            evicted = ring[head];
+            head = (head + 1) % ring.length;
+            size--;
+        }
+        ring[(head + size) % ring.length] = c;
+        size++;
+        return evicted;
+    }
+
+    public Command pop() {
+        if (size == 0) return null;
+        int i = (head + size - 1) % ring.length;
+        Command c = ring[i];
+        ring[i] = null;
+        size--;
+        return c;
+    }
+
+    public Command peek() {
+        return (size == 0) ? null : ring[(head + size - 1) % ring.length];
+    }
+
+    public int size() { return size; }
+
+    public int capacity() { return ring.length; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() {
+        while (size > 0) pop();
+        head = 0;
+    }
+}
@@ -1,42 +1,117 @@
 package patrones_farmacia.command.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import patrones_farmacia.facade.model.Sale;
 import patrones_farmacia.factoryMethod.model.Medicine;
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Registro de ventas indexado por id (sin distinguir mayúsculas), seguro
+ * para varias cajas a la vez. Las escrituras solo se serializan por id; el
+ * orden de registro lo da una secuencia global. La lista de getAllSales()
+ * se arma recién cuando una lectura encuentra que hubo cambios, y se
+ * reutiliza mientras no haya otro.
+ *
+ * La secuencia y la versión son dos contadores atómicos que comparten
+ * todas las cajas: cada alta o baja los incrementa, así que con muchas
+ * cajas escribiendo sin parar ese par de contadores es el punto de
+ * contención, y quien lea getAllSales() justo después de un cambio paga
+ * la copia completa. Se eligió así porque el orden global de registro es
+ * parte del contrato de getAllSales().
+ */
 public class SaleReceiver {
 
-    private List<Sale> sales;
+    private final ConcurrentHashMap<String, Entry> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Sale> order = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private final List<Sale> view = new SalesView();
+    private volatile Snapshot snapshot = new Snapshot(0, new Sale[0]);
 
-    public SaleReceiver() {
-        this.sales = new ArrayList<>();
+    public void registerSale(Sale sale) {
+        insert(sale);
+        if (EventLog.enabled()) EventLog.emit("Venta registrada: " + sale.getId());
     }
 
-    public void registerSale(Sale sale) {
-        sales.add(sale);
-        System.out.println("Venta registrada: " + sale.getId());
+    /**
+     * Registra varias ventas con un único aviso al final. Si alguna falla,
+     * se quitan las que ya se habían registrado y se relanza el error.
+     */
+    public void registerSales(List<Sale> batch) {
+        int done = 0;
+        try {
+            for (Sale sale : batch) {
+                insert(sale);
+                done++;
+            }
+        } catch (RuntimeException e) {
+            for (int i = done - 1; i >= 0; i--) removeExact(batch.get(i));
+            throw e;
+        }
+        if (EventLog.enabled()) EventLog.emit("Ventas registradas: " + batch.size());
+    }
+
+    /**
+     * Deshace varios registros con un único aviso al final, quitando cada
+     * venta como lo hace {@link #cancelSale(Sale)}.
+     */
+    public int unregisterSales(List<Sale> sales) {
+        int cancelled = 0;
+        for (Sale sale : sales) {
+            if (sale != null && removeExact(sale)) cancelled++;
+        }
+        if (EventLog.enabled()) EventLog.emit("Ventas canceladas: " + cancelled);
+        return cancelled;
+    }
+
+    /**
+     * Cancela exactamente esa venta (la misma instancia), aunque otras cajas
+     * hayan registrado ventas con el mismo id. Si la instancia se registró
+     * más de una vez, quita el registro más reciente. Un comando leído del
+     * diario o del historial en disco trae una copia, no la instancia: en
+     * ese caso se quita el registro más reciente con el mismo id y cliente.
+     */
+    public boolean cancelSale(Sale sale) {
+        if (sale == null || !removeExact(sale)) return false;
+        if (EventLog.enabled()) EventLog.emit("Venta " + sale.getId() + " cancelada.");
+        return true;
     }
 
     public boolean cancelSale(String saleId) {
-        for (int i = 0; i < sales.size(); i++) {
-            if (sales.get(i).getId().equalsIgnoreCase(saleId)) {
-                sales.remove(i);
-                System.out.println("Venta " + saleId + " cancelada.");
-                return true;
-            }
+        if (!remove(saleId)) return false;
+        if (EventLog.enabled()) EventLog.emit("Venta " + saleId + " cancelada.");
+        return true;
+    }
+
+    /**
+     * Cancela varias ventas con un único aviso al final. Devuelve cuántas se encontraron.
+     */
+    public int cancelSales(List<String> saleIds) {
+        int cancelled = 0;
+        for (String saleId : saleIds) {
+            if (remove(saleId)) cancelled++;
         }
-        return false;
+        if (EventLog.enabled()) EventLog.emit("Ventas canceladas: " + cancelled);
+        return cancelled;
     }
 
     public boolean returnProduct(String saleId, Medicine med) {
-        for (Sale s : sales) {
-            if (s.getId().equalsIgnoreCase(saleId)) {
-                List<Medicine> items = s.getItems();
+        if (saleId == null) return false;
+        for (Entry e = index.get(key(saleId)); e != null; e = e.next) {
+            List<Medicine> items = e.sale.getItems();
+            synchronized (items) {
                 for (int i = 0; i < items.size(); i++) {
                     if (items.get(i).getName().equalsIgnoreCase(med.getName())) {
                         items.remove(i);
-                        System.out.println("Producto " + med.getName() + " devuelto.");
+                        if (EventLog.enabled()) EventLog.emit("Producto " + med.getName() + " devuelto.");
                         return true;
                     }
                 }
@@ -45,7 +120,126 @@ public class SaleReceiver {
         return false;
     }
 
+    public Sale findSale(String saleId) {
+        if (saleId == null) return null;
+        Entry e = index.get(key(saleId));
+        return (e == null) ? null : e.sale;
+    }
+
+    /**
+     * Vista de solo lectura de las ventas vigentes, en orden de registro.
+     */
     public List<Sale> getAllSales() {
-        return sales;
+        return view;
+    }
+
+    private void insert(Sale sale) {
+        index.compute(key(sale.getId()), (k, head) -> {
+            Entry e = new Entry(sale, sequence.incrementAndGet());
+            order.put(e.seq, sale);
+            version.incrementAndGet();
+            if (head == null) return e;
+            Entry tail = head;
+            while (tail.next != null) tail = tail.next;
+            tail.next = e;
+            return head;
+        });
+    }
+
+    private boolean remove(String saleId) {
+        if (saleId == null) return false;
+        boolean[] removed = new boolean[1];
+        index.computeIfPresent(key(saleId), (k, head) -> {
+            removed[0] = true;
+            order.remove(head.seq);
+            version.incrementAndGet();
+            return head.next;
+        });
+        return removed[0];
+    }
+
+    private boolean removeExact(Sale sale) {
+        boolean[] removed = new boolean[1];
+        index.computeIfPresent(key(sale.getId()), (k, head) -> {
+            Entry match = null;
+            Entry matchPrev = null;
+            Entry prev = null;
+            for (Entry e = head; e != null; prev = e, e = e.next) {
+                if (e.sale == sale) {
+                    match = e;
+                    matchPrev = prev;
+                }
+            }
+            if (match == null) {
+                prev = null;
+                for (Entry e = head; e != null; prev = e, e = e.next) {
+                    if (Objects.equals(e.sale.getClient(), sale.getClient())) {
+                        match = e;
+                        matchPrev = prev;
+                    }
+                }
+            }
+            if (match == null) return head;
+            removed[0] = true;
+            order.remove(match.seq);
+            version.incrementAndGet();
+            if (matchPrev == null) return match.next;
+            matchPrev.next = match.next;
+            return head;
+        });
+        return removed[0];
+    }
+
+    private Sale[] current() {
+        Snapshot s = snapshot;
+        long v = version.get();
+        if (s.version != v) {
+            s = new Snapshot(v, order.values().toArray(new Sale[0]));
+            snapshot = s;
+        }
+        return s.sales;
+    }
+
+    private static String key(String saleId) {
+        return (saleId == null) ? "" : saleId.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        final Sale sale;
+        final long seq;
+        volatile Entry next;
+
+        Entry(Sale sale, long seq) {
+            this.sale = sale;
+            this.seq = seq;
+        }
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final Sale[] sales;
+
+        Snapshot(long version, Sale[] sales) {
+            this.version = version;
+            this.sales = sales;
+        }
+    }
+
+    private class SalesView extends AbstractList<Sale> {
+
+        @Override
+        public Sale get(int i) {
+            Sale[] sales = current();
+            if (i < 0 || i >= sales.length) throw new IndexOutOfBoundsException("Índice: " + i + ", tamaño: " + sales.length);
+            return sales[i];
+        }
+
+        @Override
+        public int size() { return current().length; }
+
+        @Override
+        public Iterator<Sale> iterator() {
+            return Arrays.asList(current()).iterator();
+        }
     }
-}
\ No newline at end of file
+}
@@ -38,6 +38,16 @@ public class DecoratorController {
         return price;
     }
 
+    /**
+     * Igual que calculateFinalPrice, pero en centavos exactos.
+     */
+    public long calculateFinalPriceCents(Product product) {
+        if (product == null) throw new IllegalArgumentException("Producto no puede ser null.");
+        long cents = product.getPriceCents();
+        if (cents < 0) throw new IllegalStateException("Precio calculado negativo.");
+        return cents;
+    }
+
     public String describeProduct(Product product) {
         if (product == null) return "Producto no definido";
         return product.getDescription() + " | Precio final: $" + String.format("%.2f", product.getPrice());
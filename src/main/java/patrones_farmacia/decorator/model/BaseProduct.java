@@ -1,18 +1,25 @@
 package patrones_farmacia.decorator.model;
 
+import patrones_farmacia.util.Money;
+
 public class BaseProduct implements Product {
 
     private String name;
     private double price;
+    private long priceCents;
 
     public BaseProduct(String name, double price) {
         this.name = name;
         this.price = price;
+        this.priceCents = Money.of(price);
     }
 
     @Override
     public double getPrice() { return price; }
 
+    @Override
+    public long getPriceCents() { return priceCents; }
+
     @Override
     public String getDescription() { return name; }
 }
\ No newline at end of file
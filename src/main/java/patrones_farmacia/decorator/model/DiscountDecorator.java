@@ -1,5 +1,7 @@
 package patrones_farmacia.decorator.model;
 
+import patrones_farmacia.util.Money;
+
 public class DiscountDecorator extends ProductDecorator {
 
     private double discount; 
@@ -15,6 +17,11 @@ public class DiscountDecorator extends ProductDecorator {
         return discounted;
     }
 
+    @Override
+    public long getPriceCents() {
+        return Money.plusPercent(product.getPriceCents(), -discount);
+    }
+
     @Override
     public String getDescription() {
         return product.getDescription() + " (Descuento " + discount + "%)";
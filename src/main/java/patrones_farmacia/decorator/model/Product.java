@@ -1,6 +1,9 @@
 package patrones_farmacia.decorator.model;
 
+import patrones_farmacia.util.Money;
+
 public interface Product {
     double getPrice();
+    default long getPriceCents() { return Money.of(getPrice()); }
     String getDescription();
 }
\ No newline at end of file
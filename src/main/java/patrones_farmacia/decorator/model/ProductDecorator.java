@@ -11,6 +11,9 @@ public abstract class ProductDecorator implements Product {
     @Override
     public double getPrice() { return product.getPrice(); }
 
+    @Override
+    public long getPriceCents() { return product.getPriceCents(); }
+
     @Override
     public String getDescription() { return product.getDescription(); }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package patrones_farmacia.decorator.model;
 
+import patrones_farmacia.util.Money;
+
 public class TaxDecorator extends ProductDecorator {
 
     private double tax; 
@@ -14,6 +16,11 @@ public class TaxDecorator extends ProductDecorator {
         return product.getPrice() * (1 + tax / 100.0);
     }
 
+    @Override
+    public long getPriceCents() {
+        return Money.plusPercent(product.getPriceCents(), tax);
+    }
+
     @Override
     public String getDescription() {
         return product.getDescription() + " (IVA " + tax + "%)";
@@ -1,8 +1,21 @@
 package patrones_farmacia.facade.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
+import patrones_farmacia.facade.model.CheckoutStatus;
 import patrones_farmacia.facade.model.Sale;
+import patrones_farmacia.facade.model.StockCounter;
+import patrones_farmacia.facade.model.StockReservation;
 import patrones_farmacia.factoryMethod.model.Medicine;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Fachada: orquesta el proceso completo de venta.
@@ -12,6 +25,9 @@ public class FacadeSale {
     private InventSystem invent;
     private PaySystem pay;
     private ReceiptSystem receipt;
+    private ExecutorService asyncExecutor;
+    private boolean ownsAsyncExecutor;
+    private long paymentTimeoutNanos;
 
     public FacadeSale(InventSystem invent, PaySystem pay, ReceiptSystem receipt) {
         this.invent = invent;
@@ -20,26 +36,246 @@ public class FacadeSale {
     }
 
     public boolean doSale(Sale sale, String paymentMode) {
-        System.out.println("\nProcesando venta #" + sale.getId());
+        return checkout(sale, paymentMode) == CheckoutStatus.COMPLETED;
+    }
 
-        List<Medicine> items = sale.getItems();
-        for (Medicine med : items) {
-            if (!invent.verifyStock(med)) {
-                System.out.println("El producto " + med.getName() + " no está disponible.");
-                return false;
+    /**
+     * Executor de las ventas asíncronas. Por defecto es un pool de hilos
+     * daemon propio; en un JDK con hilos virtuales se puede pasar
+     * Executors.newVirtualThreadPerTaskExecutor().
+     */
+    public synchronized void setAsyncExecutor(ExecutorService executor) {
+        if (ownsAsyncExecutor) asyncExecutor.shutdown();
+        this.asyncExecutor = executor;
+        this.ownsAsyncExecutor = false;
+    }
+
+    /**
+     * Plazo para stock y pago de cada venta asíncrona; 0 espera sin límite.
+     */
+    public void setPaymentTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) throw new IllegalArgumentException("El plazo no puede ser negativo.");
+        this.paymentTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Versión asíncrona de doSale. El futuro se completa en cuanto se sabe
+     * el resultado; el recibo se genera después en otra tarea, de modo que
+     * la caja puede empezar a validar la siguiente venta mientras tanto.
+     *
+     * Si el futuro se cancela o vence el plazo, se interrumpe la tarea (un
+     * pago bloqueado deja de ocupar el hilo) y se devuelve el stock apartado.
+     * Si aun así el pago se aprueba después, se reembolsa por el mismo medio
+     * y el stock vuelve al inventario.
+     */
+    public CompletableFuture<CheckoutStatus> doSaleAsync(Sale sale, String paymentMode) {
+        ExecutorService executor = asyncExecutor();
+        CompletableFuture<CheckoutStatus> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> runAsync(sale, paymentMode, result, executor));
+        if (paymentTimeoutNanos > 0) result.orTimeout(paymentTimeoutNanos, TimeUnit.NANOSECONDS);
+        result.whenComplete((status, error) -> {
+            if (error != null) task.cancel(true);
+        });
+        return result;
+    }
+
+    public synchronized void shutdownAsync() {
+        if (ownsAsyncExecutor) asyncExecutor.shutdownNow();
+        asyncExecutor = null;
+        ownsAsyncExecutor = false;
+    }
+
+    private void runAsync(Sale sale, String paymentMode, CompletableFuture<CheckoutStatus> result, ExecutorService executor) {
+        if (result.isDone()) return;
+        StockReservation reservation = invent.reserve(sale);
+        if (!reservation.isSuccessful()) {
+            result.complete(CheckoutStatus.OUT_OF_STOCK);
+            return;
+        }
+        try {
+            if (result.isDone()) return;
+            boolean paid = pay.processPaymentCents(sale.getTotalCents(), paymentMode);
+            if (!paid) {
+                result.complete(CheckoutStatus.PAYMENT_FAILED);
+                return;
+            }
+            reservation.commit();
+            if (result.complete(CheckoutStatus.COMPLETED)) {
+                executor.execute(() -> receipt.generateReceipt(sale));
+                return;
+            }
+            boolean refunded = pay.refundPaymentCents(sale.getTotalCents(), paymentMode);
+            reservation.restock();
+            EventLog.emit("Pago de la venta " + sale.getId() + " aprobado después de cancelarla; "
+                    + (refunded ? "se reembolsó." : "no se pudo reembolsar."));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        } finally {
+            reservation.release();
+        }
+    }
+
+    private synchronized ExecutorService asyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "farma-checkout");
+                t.setDaemon(true);
+                return t;
+            });
+            ownsAsyncExecutor = true;
+        }
+        return asyncExecutor;
+    }
+
+    public CheckoutStatus[] doSales(List<Sale> sales, String paymentMode) {
+        List<String> modes = new ArrayList<>(sales.size());
+        for (int i = 0; i < sales.size(); i++) modes.add(paymentMode);
+        return doSales(sales, modes);
+    }
+
+    /**
+     * Procesa un lote de ventas (por ejemplo pedidos web acumulados). El
+     * stock de todo el lote se revisa en una pasada y se aparta con una sola
+     * operación por producto; los pagos se agrupan por medio de pago y al
+     * final cada producto se confirma o libera una sola vez. Las ventas se
+     * atienden en orden: si no alcanza el stock, quedan fuera las últimas.
+     * Devuelve el resultado de cada venta en la misma posición.
+     */
+    public CheckoutStatus[] doSales(List<Sale> sales, List<String> paymentModes) {
+        if (sales.size() != paymentModes.size()) {
+            throw new IllegalArgumentException("Cada venta necesita su medio de pago.");
+        }
+        int n = sales.size();
+        CheckoutStatus[] status = new CheckoutStatus[n];
+
+        Map<String, Integer> remaining = new HashMap<>();
+        List<Map<String, Integer>> demand = new ArrayList<>(n);
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            Map<String, Integer> need = new HashMap<>();
+            for (Medicine med : sales.get(i).getItems()) need.merge(InventSystem.key(med.getName()), 1, Integer::sum);
+            demand.add(need);
+            boolean fits = true;
+            for (Map.Entry<String, Integer> e : need.entrySet()) {
+                int left = remaining.computeIfAbsent(e.getKey(), this::available);
+                if (left < e.getValue()) {
+                    fits = false;
+                    break;
+                }
+            }
+            if (!fits) {
+                status[i] = CheckoutStatus.OUT_OF_STOCK;
+                continue;
+            }
+            for (Map.Entry<String, Integer> e : need.entrySet()) {
+                remaining.merge(e.getKey(), -e.getValue(), Integer::sum);
+                totals.merge(e.getKey(), e.getValue(), Integer::sum);
+            }
+        }
+
+        if (!reserveAll(totals)) {
+            for (int i = 0; i < n; i++) {
+                if (status[i] == null) status[i] = checkout(sales.get(i), paymentModes.get(i));
+            }
+            return status;
+        }
+
+        boolean[] accepted = new boolean[n];
+        Map<String, List<Integer>> byMode = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (status[i] == null) {
+                accepted[i] = true;
+                byMode.computeIfAbsent(paymentModes.get(i), m -> new ArrayList<>()).add(i);
+            }
+        }
+        try {
+            for (Map.Entry<String, List<Integer>> group : byMode.entrySet()) {
+                List<Integer> idx = group.getValue();
+                long[] amounts = new long[idx.size()];
+                for (int j = 0; j < amounts.length; j++) amounts[j] = sales.get(idx.get(j)).getTotalCents();
+                boolean[] paid = pay.processPaymentsCents(amounts, group.getKey());
+                for (int j = 0; j < paid.length; j++) {
+                    status[idx.get(j)] = paid[j] ? CheckoutStatus.COMPLETED : CheckoutStatus.PAYMENT_FAILED;
+                }
+            }
+        } finally {
+            settle(totals, demand, accepted, status);
+        }
+
+        int completed = 0;
+        for (int i = 0; i < n; i++) {
+            if (status[i] == CheckoutStatus.COMPLETED) {
+                completed++;
+                receipt.generateReceipt(sales.get(i));
+            }
+        }
+        if (EventLog.enabled()) EventLog.emit("Lote de " + n + " ventas: " + completed + " completadas.");
+        return status;
+    }
+
+    private CheckoutStatus checkout(Sale sale, String paymentMode) {
+        if (EventLog.enabled()) EventLog.emit("\nProcesando venta #" + sale.getId());
+
+        StockReservation reservation = invent.reserve(sale);
+        if (!reservation.isSuccessful()) {
+            if (EventLog.enabled()) EventLog.emit("El producto " + reservation.getMissing().get(0) + " no está disponible.");
+            return CheckoutStatus.OUT_OF_STOCK;
+        }
+
+        try {
+            if (pay.processPaymentCents(sale.getTotalCents(), paymentMode)) {
+                reservation.commit();
+                receipt.generateReceipt(sale);
+                EventLog.emit("Venta completada con éxito.");
+                return CheckoutStatus.COMPLETED;
+            } else {
+                EventLog.emit("Error en el pago, venta cancelada.");
+                return CheckoutStatus.PAYMENT_FAILED;
             }
+        } finally {
+            reservation.release();
         }
+    }
 
-        if (pay.processPayment(sale.getTotal(), paymentMode)) {
-            for (Medicine med : items) {
-                invent.removeFromStock(med);
+    /**
+     * Confirma las unidades de las ventas cobradas y libera las demás, una
+     * operación por producto.
+     */
+    private void settle(Map<String, Integer> totals, List<Map<String, Integer>> demand,
+                        boolean[] accepted, CheckoutStatus[] status) {
+        Map<String, Integer> unpaid = new HashMap<>();
+        for (int i = 0; i < status.length; i++) {
+            if (accepted[i] && status[i] != CheckoutStatus.COMPLETED) {
+                for (Map.Entry<String, Integer> e : demand.get(i).entrySet()) unpaid.merge(e.getKey(), e.getValue(), Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> e : totals.entrySet()) {
+            StockCounter c = invent.counter(e.getKey());
+            int back = unpaid.getOrDefault(e.getKey(), 0);
+            if (back > 0) c.release(back);
+            if (e.getValue() > back) c.commit(e.getValue() - back);
+        }
+    }
+
+    private int available(String key) {
+        StockCounter c = invent.counter(key);
+        return (c == null) ? 0 : c.getAvailable();
+    }
+
+    /**
+     * Aparta el total de cada producto con una operación por producto. Si
+     * otra caja se adelantó y alguno ya no alcanza, devuelve lo apartado.
+     */
+    private boolean reserveAll(Map<String, Integer> totals) {
+        List<Map.Entry<String, Integer>> done = new ArrayList<>(totals.size());
+        for (Map.Entry<String, Integer> e : totals.entrySet()) {
+            StockCounter c = invent.counter(e.getKey());
+            if (c == null || !c.tryReserve(e.getValue())) {
+                for (Map.Entry<String, Integer> d : done) invent.counter(d.getKey()).release(d.getValue());
+                return false;
             }
-            receipt.generateReceipt(sale);
-            System.out.println("Venta completada con éxito.");
-            return true;
-        } else {
-            System.out.println("Error en el pago, venta cancelada.");
-            return false;
+            done.add(e);
         }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -1,33 +1,92 @@
 package patrones_farmacia.facade.controller;
 
+import patrones_farmacia.facade.model.Sale;
+import patrones_farmacia.facade.model.StockCounter;
+import patrones_farmacia.facade.model.StockReservation;
 import patrones_farmacia.factoryMethod.model.Medicine;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-
+/**
+ * Inventario por unidades: cada addToStock suma una unidad del medicamento
+ * (por nombre, sin distinguir mayúsculas). Las ventas concurrentes apartan
+ * unidades con reserve y luego las confirman o devuelven, sin bloqueo global.
+ */
 public class InventSystem {
 
-    private List<Medicine> stock = new ArrayList<>();
+    private final Map<String, StockCounter> stock = new ConcurrentHashMap<>();
 
     public void addToStock(Medicine med) {
-        stock.add(med);
+        addToStock(med, 1);
+    }
+
+    public void addToStock(Medicine med, int units) {
+        if (units <= 0) throw new IllegalArgumentException("Las unidades deben ser positivas.");
+        stock.computeIfAbsent(key(med.getName()), k -> new StockCounter()).add(units);
     }
 
     public boolean verifyStock(Medicine med) {
-        for (Medicine m : stock) {
-            if (m.getName().equalsIgnoreCase(med.getName())) {
-                return true;
-            }
-        }
-        return false;
+        return getAvailable(med.getName()) > 0;
     }
 
     public void removeFromStock(Medicine med) {
-        for (int i = 0; i < stock.size(); i++) {
-            if (stock.get(i).getName().equalsIgnoreCase(med.getName())) {
-                stock.remove(i);
-                break;
+        StockCounter c = stock.get(key(med.getName()));
+        if (c != null) c.tryTake(1);
+    }
+
+    /**
+     * Aparta todas las unidades que pide la venta, o ninguna. Si falta algún
+     * producto la reserva viene fallida con la lista de faltantes.
+     */
+    public StockReservation reserve(Sale sale) {
+        Map<String, Integer> wanted = new LinkedHashMap<>();
+        Map<String, String> names = new LinkedHashMap<>();
+        for (Medicine med : sale.getItems()) {
+            String k = key(med.getName());
+            wanted.merge(k, 1, Integer::sum);
+            names.putIfAbsent(k, med.getName());
+        }
+        StockCounter[] counters = new StockCounter[wanted.size()];
+        int[] units = new int[wanted.size()];
+        List<String> missing = null;
+        int i = 0;
+        for (Map.Entry<String, Integer> e : wanted.entrySet()) {
+            StockCounter c = stock.get(e.getKey());
+            if (c != null && c.tryReserve(e.getValue())) {
+                counters[i] = c;
+                units[i] = e.getValue();
+                i++;
+            } else {
+                if (missing == null) missing = new ArrayList<>();
+                missing.add(names.get(e.getKey()));
             }
         }
+        if (missing != null) {
+            for (int j = 0; j < i; j++) counters[j].release(units[j]);
+            return StockReservation.failed(missing);
+        }
+        return new StockReservation(counters, units);
+    }
+
+    public int getAvailable(String name) {
+        StockCounter c = stock.get(key(name));
+        return (c == null) ? 0 : c.getAvailable();
+    }
+
+    public int getReserved(String name) {
+        StockCounter c = stock.get(key(name));
+        return (c == null) ? 0 : c.getReserved();
+    }
+
+    StockCounter counter(String key) {
+        return stock.get(key);
+    }
+
+    static String key(String name) {
+        return (name == null) ? "" : name.toLowerCase(Locale.ROOT);
     }
-}
\ No newline at end of file
+}
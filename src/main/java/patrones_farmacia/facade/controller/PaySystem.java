@@ -1,6 +1,7 @@
 package patrones_farmacia.facade.controller;
 
 import patrones_farmacia.adapter.model.*;
+import patrones_farmacia.util.Money;
 
 public class PaySystem {
 
@@ -11,7 +12,34 @@ public class PaySystem {
     }
 
     public boolean processPayment(double amount, String mode) {
-        payAdapter.setMode(mode);
-        return payAdapter.pay(amount);
+        return payAdapter.pay(mode, amount);
     }
-}
\ No newline at end of file
+
+    public boolean processPaymentCents(long amountCents, String mode) {
+        return payAdapter.payCents(mode, amountCents);
+    }
+
+    public boolean refundPaymentCents(long amountCents, String mode) {
+        return payAdapter.refundCents(mode, amountCents);
+    }
+
+    public boolean[] processPayments(double[] amounts, String mode) {
+        long[] cents = new long[amounts.length];
+        for (int i = 0; i < amounts.length; i++) cents[i] = (amounts[i] < 0) ? -1 : Money.of(amounts[i]);
+        return processPaymentsCents(cents, mode);
+    }
+
+    /**
+     * Cobra varios montos con el mismo medio de pago, resolviendo el modo una sola vez.
+     */
+    public boolean[] processPaymentsCents(long[] amountsCents, String mode) {
+        boolean[] paid = new boolean[amountsCents.length];
+        PayMode m = PayMode.parse(mode);
+        if (m == null) {
+            for (int i = 0; i < amountsCents.length; i++) paid[i] = payAdapter.payCents(mode, amountsCents[i]);
+            return paid;
+        }
+        for (int i = 0; i < amountsCents.length; i++) paid[i] = payAdapter.payCents(m, amountsCents[i]);
+        return paid;
+    }
+}
@@ -1,17 +1,19 @@
 package patrones_farmacia.facade.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import patrones_farmacia.facade.model.Sale;
 
 public class ReceiptSystem {
 
     public void generateReceipt(Sale sale) {
-        System.out.println("\n=== RECIBO DE VENTA ===");
-        System.out.println("Cliente: " + sale.getClient());
-        System.out.println("Medicamentos comprados:");
+        if (!EventLog.enabled()) return;
+        EventLog.emit("\n=== RECIBO DE VENTA ===");
+        EventLog.emit("Cliente: " + sale.getClient());
+        EventLog.emit("Medicamentos comprados:");
         for (var m : sale.getItems()) {
-            System.out.println("- " + m.getName() + " ($" + m.getPrice() + ")");
+            EventLog.emit("- " + m.getName() + " ($" + m.getPrice() + ")");
         }
-        System.out.println("TOTAL: $" + sale.getTotal());
-        System.out.println("=========================");
+        EventLog.emit("TOTAL: $" + sale.getTotal());
+        EventLog.emit("=========================");
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package patrones_farmacia.facade.model;
+
+/**
+ * Resultado de una venta dentro de un lote de checkout.
+ */
+public enum CheckoutStatus {
+    COMPLETED,
+    OUT_OF_STOCK,
+    PAYMENT_FAILED
+}
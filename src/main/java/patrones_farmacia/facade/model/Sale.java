@@ -10,6 +10,7 @@ public class Sale {
     private String client;
     private List<Medicine> items;
     private double total;
+    private long totalCents;
 
     public Sale(String id, String client) {
         this.id = id;
@@ -21,9 +22,11 @@ public class Sale {
     public void addMedicine(Medicine med) {
         items.add(med);
         total += med.getPrice();
+        totalCents += med.getPriceCents();
     }
 
     public double getTotal() { return total; }
+    public long getTotalCents() { return totalCents; }
     public String getClient() { return client; }
     public List<Medicine> getItems() { return items; }
     public String getId() { return id; }
@@ -0,0 +1,58 @@
+package patrones_farmacia.facade.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unidades de un medicamento: disponibles y apartadas por ventas en curso.
+ * Todas las operaciones son compare-and-set, sin bloqueos.
+ */
+public class StockCounter {
+
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    public void add(int units) {
+        available.addAndGet(units);
+    }
+
+    /**
+     * Aparta las unidades si hay suficientes disponibles.
+     */
+    public boolean tryReserve(int units) {
+        int current;
+        do {
+            current = available.get();
+            if (current < units) return false;
+        } while (!available.compareAndSet(current, current - units));
+        reserved.addAndGet(units);
+        return true;
+    }
+
+    /**
+     * Las unidades apartadas salen definitivamente del inventario.
+     */
+    public void commit(int units) {
+        reserved.addAndGet(-units);
+    }
+
+    /**
+     * Las unidades apartadas vuelven a estar disponibles.
+     */
+    public void release(int units) {
+        reserved.addAndGet(-units);
+        available.addAndGet(units);
+    }
+
+    /**
+     * Retira las unidades sin pasar por una reserva.
+     */
+    public boolean tryTake(int units) {
+        if (!tryReserve(units)) return false;
+        commit(units);
+        return true;
+    }
+
+    public int getAvailable() { return available.get(); }
+
+    public int getReserved() { return reserved.get(); }
+}
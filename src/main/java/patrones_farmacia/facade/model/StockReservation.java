@@ -0,0 +1,70 @@
+package patrones_farmacia.facade.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unidades apartadas para una venta. Se confirma con commit cuando el pago
+ * sale bien o se devuelve con release si falla; solo la primera de las dos
+ * llamadas tiene efecto.
+ */
+public class StockReservation {
+
+    private static final int PENDING = 0;
+    private static final int COMMITTED = 1;
+    private static final int RELEASED = 2;
+
+    private final StockCounter[] counters;
+    private final int[] units;
+    private final List<String> missing;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    public StockReservation(StockCounter[] counters, int[] units) {
+        this.counters = counters;
+        this.units = units;
+        this.missing = Collections.emptyList();
+    }
+
+    private StockReservation(List<String> missing) {
+        this.counters = new StockCounter[0];
+        this.units = new int[0];
+        this.missing = Collections.unmodifiableList(missing);
+        this.state.set(RELEASED);
+    }
+
+    /**
+     * Reserva fallida: no aparta nada y recuerda qué productos faltaron.
+     */
+    public static StockReservation failed(List<String> missing) {
+        return new StockReservation(missing);
+    }
+
+    public boolean isSuccessful() { return missing.isEmpty(); }
+
+    public List<String> getMissing() { return missing; }
+
+    public boolean commit() {
+        if (!state.compareAndSet(PENDING, COMMITTED)) return false;
+        for (int i = 0; i < counters.length; i++) counters[i].commit(units[i]);
+        return true;
+    }
+
+    public boolean release() {
+        if (!state.compareAndSet(PENDING, RELEASED)) return false;
+        for (int i = 0; i < counters.length; i++) counters[i].release(units[i]);
+        return true;
+    }
+
+    /**
+     * Devuelve al inventario unidades ya confirmadas, para anular una venta
+     * después del commit. Solo tiene efecto tras un commit.
+     */
+    public boolean restock() {
+        if (!state.compareAndSet(COMMITTED, RELEASED)) return false;
+        for (int i = 0; i < counters.length; i++) counters[i].add(units[i]);
+        return true;
+    }
+
+    public boolean isPending() { return state.get() == PENDING; }
+}
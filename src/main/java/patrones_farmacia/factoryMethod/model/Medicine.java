@@ -1,8 +1,11 @@
 package patrones_farmacia.factoryMethod.model;
 
+import patrones_farmacia.util.Money;
+
 public interface Medicine {
     String getName();
     double getPrice();
+    default long getPriceCents() { return Money.of(getPrice()); }
     boolean isControlled();
     String getLaboratory();
     String getType();
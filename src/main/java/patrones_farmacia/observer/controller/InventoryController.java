@@ -1,5 +1,6 @@
 package patrones_farmacia.observer.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import patrones_farmacia.observer.model.*;
 import java.util.List;
 
@@ -43,15 +44,20 @@ public class InventoryController {
         return subject.getLowStockProducts();
     }
 
+    public List<String> getLowStockProductsByStock() {
+        return subject.getLowStockProductsByStock();
+    }
+
     public List<String> getAllProducts() {
         return subject.getAllProductNames();
     }
 
     public void showInventory() {
-        System.out.println("\n=== INVENTARIO ACTUAL ===");
+        if (!EventLog.enabled()) return;
+        EventLog.emit("\n=== INVENTARIO ACTUAL ===");
         for (String name : subject.getAllProductNames()) {
             int stock = subject.getStockLevel(name);
-            System.out.println("- " + name + " : " + stock + " unidades");
+            EventLog.emit("- " + name + " : " + stock + " unidades");
         }
     }
 
@@ -62,4 +68,13 @@ public class InventoryController {
     public int getThreshold() {
         return subject.getMinThreshold();
     }
+
+    public boolean setProductThreshold(String name, int threshold) {
+        return subject.setProductThreshold(name, threshold);
+    }
+
+    public void setAlertWindow(long windowMillis) {
+        if (windowMillis > 0) subject.enableAlertCoalescing(windowMillis);
+        else subject.disableAlertCoalescing();
+    }
 }
\ No newline at end of file
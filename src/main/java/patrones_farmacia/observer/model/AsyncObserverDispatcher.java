@@ -0,0 +1,280 @@
+package patrones_farmacia.observer.model;
+
+import patrones_farmacia.Singleton.model.EventLog;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Entrega las notificaciones de stock fuera del hilo de venta. Cada
+ * observador tiene su propia cola acotada, vaciada en orden por una sola
+ * tarea a la vez sobre el executor configurado.
+ *
+ * Después de shutdown las notificaciones nuevas se descartan y se cuentan
+ * como descartadas, igual que las que queden en cola si el executor deja de
+ * aceptar tareas; un hilo de venta esperando lugar bajo BLOCK se despierta
+ * y descarta la suya. Lo que ya estaba en cola se sigue entregando.
+ */
+public class AsyncObserverDispatcher {
+
+    private final int capacity;
+    private final BackpressurePolicy policy;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final Map<FarmaObserver, Channel> channels = new ConcurrentHashMap<>();
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private volatile boolean closed;
+
+    public AsyncObserverDispatcher(int capacity, BackpressurePolicy policy) {
+        this(capacity, policy, null);
+    }
+
+    public AsyncObserverDispatcher(int capacity, BackpressurePolicy policy, Executor executor) {
+        if (capacity <= 0) throw new IllegalArgumentException("La capacidad debe ser positiva.");
+        if (policy == null) throw new IllegalArgumentException("La política no puede ser null.");
+        this.capacity = capacity;
+        this.policy = policy;
+        if (executor == null) {
+            this.ownedExecutor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "farma-observer");
+                t.setDaemon(true);
+                return t;
+            });
+            this.executor = ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = executor;
+        }
+    }
+
+    public void dispatch(FarmaObserver observer, String productName, int stock) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        channels.computeIfAbsent(observer, Channel::new).offer(productName, stock);
+    }
+
+    public void forget(FarmaObserver observer) {
+        channels.remove(observer);
+    }
+
+    /**
+     * Espera hasta que todas las colas estén vacías. Devuelve false si vence el plazo.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Channel c : channels.values()) {
+            if (!c.awaitIdle(deadline)) return false;
+        }
+        return true;
+    }
+
+    public void shutdown() {
+        closed = true;
+        for (Channel c : channels.values()) c.wakeUp();
+        if (ownedExecutor != null) ownedExecutor.shutdown();
+    }
+
+    public boolean isShutdown() { return closed; }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Channel c : channels.values()) depth += c.depth();
+        return depth;
+    }
+
+    public int getQueueDepth(FarmaObserver observer) {
+        Channel c = channels.get(observer);
+        return (c == null) ? 0 : c.depth();
+    }
+
+    public long getDispatchedCount() { return dispatched.sum(); }
+
+    public long getDroppedCount() { return dropped.sum(); }
+
+    public long getCoalescedCount() { return coalesced.sum(); }
+
+    public long getAverageLatencyNanos() {
+        long n = dispatched.sum();
+        return (n == 0) ? 0 : latencyNanos.sum() / n;
+    }
+
+    public long getMaxLatencyNanos() { return maxLatencyNanos.get(); }
+
+    public BackpressurePolicy getPolicy() { return policy; }
+
+    public int getCapacity() { return capacity; }
+
+    private static String key(String productName) {
+        return (productName == null) ? null : productName.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Notification {
+        final String productName;
+        int stock;
+        final long enqueuedAt;
+
+        Notification(String productName, int stock) {
+            this.productName = productName;
+            this.stock = stock;
+            this.enqueuedAt = System.nanoTime();
+        }
+    }
+
+    private final class Channel implements Runnable {
+        private final FarmaObserver observer;
+        private final ArrayDeque<Notification> queue = new ArrayDeque<>();
+        private final Map<String, Notification> pendingByProduct = new HashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private boolean draining;
+
+        Channel(FarmaObserver observer) {
+            this.observer = observer;
+        }
+
+        void offer(String productName, int stock) {
+            boolean schedule = false;
+            lock.lock();
+            try {
+                if (closed) {
+                    dropped.increment();
+                    return;
+                }
+                if (policy == BackpressurePolicy.COALESCE) {
+                    Notification pending = pendingByProduct.get(key(productName));
+                    if (pending != null) {
+                        pending.stock = stock;
+                        coalesced.increment();
+                        return;
+                    }
+                }
+                while (queue.size() >= capacity) {
+                    if (policy == BackpressurePolicy.DROP_OLDEST) {
+                        Notification old = queue.pollFirst();
+                        pendingByProduct.remove(key(old.productName));
+                        dropped.increment();
+                    } else {
+                        changed.awaitUninterruptibly();
+                        if (closed) {
+                            dropped.increment();
+                            return;
+                        }
+                    }
+                }
+                Notification n = new Notification(productName, stock);
+                queue.addLast(n);
+                if (policy == BackpressurePolicy.COALESCE) pendingByProduct.put(key(productName), n);
+                if (!draining) {
+                    draining = true;
+                    schedule = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!schedule) return;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                discardAll();
+            }
+        }
+
+        /**
+         * El executor ya no acepta la tarea: nadie va a vaciar la cola, así
+         * que se descarta lo pendiente y se libera a quien espera.
+         */
+        private void discardAll() {
+            lock.lock();
+            try {
+                dropped.add(queue.size());
+                queue.clear();
+                pendingByProduct.clear();
+                draining = false;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void wakeUp() {
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Notification n;
+                int stock;
+                lock.lock();
+                try {
+                    n = queue.pollFirst();
+                    if (n == null) {
+                        draining = false;
+                        changed.signalAll();
+                        return;
+                    }
+                    if (policy == BackpressurePolicy.COALESCE) pendingByProduct.remove(key(n.productName));
+                    stock = n.stock;
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    observer.update(n.productName, stock);
+                } catch (RuntimeException e) {
+                    if (EventLog.enabled()) EventLog.emit("Error notificando a " + observer + ": " + e.getMessage());
+                }
+                long latency = System.nanoTime() - n.enqueuedAt;
+                latencyNanos.add(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                dispatched.increment();
+            }
+        }
+
+        int depth() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean awaitIdle(long deadline) throws InterruptedException {
+            lock.lock();
+            try {
+                while (draining || !queue.isEmpty()) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) return false;
+                    changed.awaitNanos(left);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package patrones_farmacia.observer.model;
+
+/**
+ * Qué hacer cuando la cola de un observador asíncrono está llena.
+ */
+public enum BackpressurePolicy {
+    /** El hilo que reduce stock espera a que haya espacio. */
+    BLOCK,
+    /** Se descarta la notificación más antigua pendiente. */
+    DROP_OLDEST,
+    /** Una notificación pendiente del mismo producto se reemplaza por la última. */
+    COALESCE
+}
@@ -1,5 +1,7 @@
 package patrones_farmacia.observer.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
+
 public class EmailAlert implements FarmaObserver {
 
     private String email;
@@ -10,7 +12,7 @@ public class EmailAlert implements FarmaObserver {
 
     @Override
     public void update(String productName, int currentStock) {
-        System.out.println("[EMAIL] A " + email + ": Stock bajo de " + productName + " (" + currentStock + " unidades)");
+        if (EventLog.enabled()) EventLog.emit("[EMAIL] A " + email + ": Stock bajo de " + productName + " (" + currentStock + " unidades)");
     }
 
     @Override
@@ -1,95 +1,210 @@
 package patrones_farmacia.observer.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 public class InventorySubject {
 
     private List<FarmaObserver> observers;
-    private List<String> productNames;
-    private List<Integer> stockLevels;
-    private int minThreshold;
+    private StockTable levels;
+    private SlotSet lowStock;
+    private volatile int minThreshold;
+    private volatile AsyncObserverDispatcher dispatcher;
+    private volatile LowStockCoalescer coalescer;
 
     public InventorySubject(int i) {
-        this.observers = new ArrayList<>();
-        this.productNames = new ArrayList<>();
-        this.stockLevels = new ArrayList<>();
+        this.observers = new CopyOnWriteArrayList<>();
+        this.levels = new StockTable();
+        this.lowStock = new SlotSet();
         this.minThreshold = 5;
     }
 
     public void addObserver(FarmaObserver observer) {
-        if (!observers.contains(observer)) observers.add(observer);
+        if (observer != null && !observers.contains(observer)) observers.add(observer);
     }
 
     public void removeObserver(FarmaObserver observer) {
         observers.remove(observer);
+        AsyncObserverDispatcher d = dispatcher;
+        if (d != null) d.forget(observer);
     }
 
     public void notifyObservers(String name, int stock) {
+        AsyncObserverDispatcher d = dispatcher;
         for (FarmaObserver obs : observers) {
-            obs.update(name, stock);
+            if (d == null) obs.update(name, stock);
+            else d.dispatch(obs, name, stock);
         }
     }
 
-    public void addProduct(String name, int stock) {
-        productNames.add(name);
-        stockLevels.add(stock);
+    /**
+     * Activa la entrega asíncrona: reduceStock ya no espera a los observadores.
+     * Con null se vuelve a la entrega síncrona.
+     */
+    public void setDispatcher(AsyncObserverDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public AsyncObserverDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Agrupa las alertas de stock bajo por producto dentro de la ventana indicada.
+     */
+    public LowStockCoalescer enableAlertCoalescing(long windowMillis) {
+        disableAlertCoalescing();
+        LowStockCoalescer c = new LowStockCoalescer(windowMillis, this::notifyObservers);
+        this.coalescer = c;
+        return c;
+    }
+
+    public void disableAlertCoalescing() {
+        LowStockCoalescer c = coalescer;
+        coalescer = null;
+        if (c != null) c.shutdown();
+    }
+
+    public synchronized void addProduct(String name, int stock) {
+        track(levels.add(name, stock));
     }
 
     public void reduceStock(String name, int quantity) {
-        for (int i = 0; i < productNames.size(); i++) {
-            if (productNames.get(i).equalsIgnoreCase(name)) {
-                int newStock = stockLevels.get(i) - quantity;
-                if (newStock < 0) newStock = 0;
-                stockLevels.set(i, newStock);
-                System.out.println("Stock actualizado de " + name + ": " + newStock);
-                if (newStock <= minThreshold) {
-                    notifyObservers(name, newStock);
-                }
-                return;
+        int newStock;
+        boolean low = false;
+        synchronized (this) {
+            int slot = levels.indexOf(name);
+            if (slot < 0) {
+                newStock = -1;
+            } else {
+                newStock = Math.max(0, levels.get(slot) - quantity);
+                levels.set(slot, newStock);
+                low = track(slot);
             }
         }
-        System.out.println("Producto no encontrado: " + name);
+        if (newStock < 0) {
+            if (EventLog.enabled()) EventLog.emit("Producto no encontrado: " + name);
+            return;
+        }
+        if (EventLog.enabled()) EventLog.emit("Stock actualizado de " + name + ": " + newStock);
+        if (low) {
+            LowStockCoalescer c = coalescer;
+            if (c == null) notifyObservers(name, newStock);
+            else c.onLowStock(name, newStock);
+        }
     }
 
     public void increaseStock(String name, int quantity) {
-        for (int i = 0; i < productNames.size(); i++) {
-            if (productNames.get(i).equalsIgnoreCase(name)) {
-                int newStock = stockLevels.get(i) + quantity;
-                stockLevels.set(i, newStock);
-                System.out.println("Reposición de " + name + " a " + newStock + " unidades.");
-                return;
+        int slot;
+        int newStock = 0;
+        boolean low = false;
+        synchronized (this) {
+            slot = levels.indexOf(name);
+            if (slot >= 0) {
+                newStock = levels.get(slot) + quantity;
+                levels.set(slot, newStock);
+                low = track(slot);
             }
         }
-        System.out.println("Producto no encontrado: " + name);
+        if (slot < 0) {
+            if (EventLog.enabled()) EventLog.emit("Producto no encontrado: " + name);
+            return;
+        }
+        if (EventLog.enabled()) EventLog.emit("Reposición de " + name + " a " + newStock + " unidades.");
+        LowStockCoalescer c = coalescer;
+        if (c != null && !low) c.onRestocked(name);
     }
 
-    public int getStockLevel(String name) {
-        for (int i = 0; i < productNames.size(); i++) {
-            if (productNames.get(i).equalsIgnoreCase(name)) {
-                return stockLevels.get(i);
-            }
+    public synchronized int getStockLevel(String name) {
+        int slot = levels.indexOf(name);
+        return (slot < 0) ? -1 : levels.get(slot);
+    }
+
+    public synchronized List<String> getAllProductNames() {
+        List<String> names = new ArrayList<>(levels.size());
+        for (int i = 0; i < levels.size(); i++) {
+            names.add(levels.name(i));
         }
-        return -1;
+        return names;
     }
 
-    public List<String> getAllProductNames() {
-        return new ArrayList<>(productNames);
+    /**
+     * Productos con stock bajo en orden de inserción. Las posiciones de la
+     * tabla siguen ese orden, así que basta ordenar los enteros del conjunto.
+     */
+    public synchronized List<String> getLowStockProducts() {
+        int[] slots = new int[lowStock.size()];
+        for (int i = 0; i < slots.length; i++) slots[i] = lowStock.get(i);
+        Arrays.sort(slots);
+        List<String> low = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            low.add(levels.name(slot));
+        }
+        return low;
     }
 
-    public List<String> getLowStockProducts() {
-        List<String> low = new ArrayList<>();
-        for (int i = 0; i < productNames.size(); i++) {
-            if (stockLevels.get(i) <= minThreshold) {
-                low.add(productNames.get(i));
-            }
+    /**
+     * Productos con stock bajo ordenados de menor a mayor stock.
+     */
+    public synchronized List<String> getLowStockProductsByStock() {
+        long[] keyed = new long[lowStock.size()];
+        for (int i = 0; i < keyed.length; i++) {
+            int slot = lowStock.get(i);
+            keyed[i] = ((long) levels.get(slot) << 32) | slot;
+        }
+        Arrays.sort(keyed);
+        List<String> low = new ArrayList<>(keyed.length);
+        for (long k : keyed) {
+            low.add(levels.name((int) k));
         }
         return low;
     }
 
-    public void setMinThreshold(int threshold) {
+    private int thresholdOf(int slot) {
+        int own = levels.threshold(slot);
+        return (own == StockTable.NO_THRESHOLD) ? minThreshold : own;
+    }
+
+    private boolean track(int slot) {
+        boolean low = levels.get(slot) <= thresholdOf(slot);
+        if (low) lowStock.add(slot);
+        else lowStock.remove(slot);
+        return low;
+    }
+
+    /**
+     * Cambia el umbral global y reevalúa en una sola pasada los productos que lo usan.
+     */
+    public synchronized void setMinThreshold(int threshold) {
         this.minThreshold = threshold;
+        for (int i = 0; i < levels.size(); i++) {
+            if (levels.threshold(i) == StockTable.NO_THRESHOLD) track(i);
+        }
+        LowStockCoalescer c = coalescer;
+        if (c != null) c.reset();
+    }
+
+    /**
+     * Define un punto de reorden propio para el producto; con
+     * StockTable.NO_THRESHOLD vuelve a usar el umbral global.
+     */
+    public synchronized boolean setProductThreshold(String name, int threshold) {
+        int slot = levels.indexOf(name);
+        if (slot < 0) return false;
+        levels.setThreshold(slot, threshold);
+        track(slot);
+        LowStockCoalescer c = coalescer;
+        if (c != null) c.onRestocked(name);
+        return true;
+    }
+
+    public synchronized int getProductThreshold(String name) {
+        int slot = levels.indexOf(name);
+        return (slot < 0) ? -1 : thresholdOf(slot);
     }
 
     public int getMinThreshold() {
@@ -0,0 +1,161 @@
+package patrones_farmacia.observer.model;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agrupa las alertas de stock bajo por producto. La primera alerta tras
+ * cruzar el umbral se entrega de inmediato; las siguientes dentro de la
+ * ventana se funden en una sola con el último stock, entregada al cerrar
+ * la ventana solo si el stock cambió desde la última alerta. Una
+ * reposición por encima del umbral rearma el producto.
+ *
+ * Después de shutdown las alertas se entregan en el hilo que las genera.
+ */
+public class LowStockCoalescer {
+
+    private final long windowNanos;
+    private final FarmaObserver sink;
+    private final ScheduledExecutorService timer;
+    private final Map<String, Window> alerts = new ConcurrentHashMap<>();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private volatile boolean closed;
+
+    public LowStockCoalescer(long windowMillis, FarmaObserver sink) {
+        this(windowMillis, sink, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "farma-alert-window");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    public LowStockCoalescer(long windowMillis, FarmaObserver sink, ScheduledExecutorService timer) {
+        if (windowMillis <= 0) throw new IllegalArgumentException("La ventana debe ser positiva.");
+        if (sink == null) throw new IllegalArgumentException("El destino no puede ser null.");
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.sink = sink;
+        this.timer = timer;
+    }
+
+    public void onLowStock(String name, int stock) {
+        received.increment();
+        boolean[] deliverNow = new boolean[1];
+        String k = key(name);
+        alerts.compute(k, (ignored, w) -> {
+            long now = System.nanoTime();
+            if (w == null) {
+                deliverNow[0] = true;
+                return new Window(now, stock);
+            }
+            if (!w.scheduled && now - w.openedAt >= windowNanos) {
+                w.openedAt = now;
+                if (stock != w.lastStock) {
+                    deliverNow[0] = true;
+                    w.lastStock = stock;
+                }
+                return w;
+            }
+            if (stock == w.lastStock) {
+                w.pendingName = null;
+                return w;
+            }
+            w.pendingName = name;
+            w.pendingStock = stock;
+            if (!w.scheduled) {
+                long delay = Math.max(0, w.openedAt + windowNanos - now);
+                if (!closed && schedule(k, delay)) {
+                    w.scheduled = true;
+                } else {
+                    deliverNow[0] = true;
+                    w.pendingName = null;
+                    w.lastStock = stock;
+                }
+            }
+            return w;
+        });
+        if (deliverNow[0]) deliver(name, stock);
+    }
+
+    public void onRestocked(String name) {
+        alerts.remove(key(name));
+    }
+
+    public void reset() {
+        alerts.clear();
+    }
+
+    /**
+     * Entrega ya todas las alertas pendientes sin esperar a que cierre su ventana.
+     */
+    public void flush() {
+        for (String k : alerts.keySet()) flush(k);
+    }
+
+    /**
+     * Entrega lo pendiente y detiene el temporizador.
+     */
+    public void shutdown() {
+        closed = true;
+        flush();
+        timer.shutdown();
+    }
+
+    public long getReceivedCount() { return received.sum(); }
+
+    public long getDeliveredCount() { return delivered.sum(); }
+
+    private void flush(String k) {
+        String[] name = new String[1];
+        int[] stock = new int[1];
+        alerts.computeIfPresent(k, (ignored, w) -> {
+            if (w.pendingName != null && w.pendingStock != w.lastStock) {
+                name[0] = w.pendingName;
+                stock[0] = w.pendingStock;
+                w.lastStock = w.pendingStock;
+                w.openedAt = System.nanoTime();
+            }
+            w.pendingName = null;
+            w.scheduled = false;
+            return w;
+        });
+        if (name[0] != null) deliver(name[0], stock[0]);
+    }
+
+    private boolean schedule(String k, long delayNanos) {
+        try {
+            timer.schedule(() -> flush(k), delayNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void deliver(String name, int stock) {
+        delivered.increment();
+        sink.update(name, stock);
+    }
+
+    private static String key(String name) {
+        return (name == null) ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Window {
+        long openedAt;
+        boolean scheduled;
+        String pendingName;
+        int pendingStock;
+        int lastStock;
+
+        Window(long openedAt, int lastStock) {
+            this.openedAt = openedAt;
+            this.lastStock = lastStock;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package patrones_farmacia.observer.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
+
 public class SMSAlert implements FarmaObserver {
 
     private String phone;
@@ -10,7 +12,7 @@ public class SMSAlert implements FarmaObserver {
 
     @Override
     public void update(String productName, int currentStock) {
-        System.out.println("[SMS] " + phone + ": quedan " + currentStock + " unidades de " + productName);
+        if (EventLog.enabled()) EventLog.emit("[SMS] " + phone + ": quedan " + currentStock + " unidades de " + productName);
     }
 
     @Override
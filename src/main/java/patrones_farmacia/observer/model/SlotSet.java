@@ -0,0 +1,48 @@
+package patrones_farmacia.observer.model;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto disperso de posiciones de StockTable: alta, baja y consulta en
+ * O(1), y recorrido proporcional al número de elementos.
+ */
+public class SlotSet {
+
+    private int[] members = new int[16];
+    private int[] positions = new int[16];
+    private int size;
+
+    public boolean add(int slot) {
+        if (contains(slot)) return false;
+        if (slot >= positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(slot + 1, positions.length * 2));
+        }
+        if (size == members.length) members = Arrays.copyOf(members, size * 2);
+        members[size] = slot;
+        positions[slot] = ++size;
+        return true;
+    }
+
+    public boolean remove(int slot) {
+        if (!contains(slot)) return false;
+        int idx = positions[slot] - 1;
+        int last = members[--size];
+        members[idx] = last;
+        positions[last] = idx + 1;
+        positions[slot] = 0;
+        return true;
+    }
+
+    public boolean contains(int slot) {
+        return slot >= 0 && slot < positions.length && positions[slot] != 0;
+    }
+
+    public int get(int i) { return members[i]; }
+
+    public int size() { return size; }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) positions[members[i]] = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,101 @@
+package patrones_farmacia.observer.model;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de stock con direccionamiento abierto: nombre (sin distinguir
+ * mayúsculas) -> posición, y niveles de stock en un int[] sin boxing.
+ * Las posiciones conservan el orden de inserción; un nombre repetido ocupa
+ * una posición nueva pero las búsquedas devuelven siempre la primera.
+ */
+public class StockTable {
+
+    /** Marca de umbral no definido: el producto usa el umbral global. */
+    public static final int NO_THRESHOLD = Integer.MIN_VALUE;
+
+    private String[] names;
+    private int[] stocks;
+    private int[] thresholds;
+    private int size;
+
+    private int[] table;
+    private int mask;
+    private int indexed;
+
+    public StockTable() {
+        this(16);
+    }
+
+    public StockTable(int expected) {
+        int cap = Math.max(4, Integer.highestOneBit(Math.max(1, expected) - 1) << 1);
+        names = new String[cap];
+        stocks = new int[cap];
+        thresholds = new int[cap];
+        table = new int[cap * 2];
+        mask = table.length - 1;
+    }
+
+    public int add(String name, int stock) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            stocks = Arrays.copyOf(stocks, size * 2);
+            thresholds = Arrays.copyOf(thresholds, size * 2);
+        }
+        int slot = size++;
+        names[slot] = name;
+        stocks[slot] = stock;
+        thresholds[slot] = NO_THRESHOLD;
+        if (name != null && indexOf(name) < 0) {
+            if ((indexed + 1) * 2 > table.length) rehash(table.length * 2);
+            insert(name, slot);
+            indexed++;
+        }
+        return slot;
+    }
+
+    public int indexOf(String name) {
+        if (name == null) return -1;
+        int i = hashIgnoreCase(name) & mask;
+        int entry;
+        while ((entry = table[i]) != 0) {
+            if (names[entry - 1].equalsIgnoreCase(name)) return entry - 1;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int get(int slot) { return stocks[slot]; }
+
+    public void set(int slot, int stock) { stocks[slot] = stock; }
+
+    public int threshold(int slot) { return thresholds[slot]; }
+
+    public void setThreshold(int slot, int threshold) { thresholds[slot] = threshold; }
+
+    public String name(int slot) { return names[slot]; }
+
+    public int size() { return size; }
+
+    private void insert(String name, int slot) {
+        int i = hashIgnoreCase(name) & mask;
+        while (table[i] != 0) i = (i + 1) & mask;
+        table[i] = slot + 1;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = table;
+        table = new int[capacity];
+        mask = capacity - 1;
+        for (int entry : old) {
+            if (entry != 0) insert(names[entry - 1], entry - 1);
+        }
+    }
+
+    static int hashIgnoreCase(String s) {
+        int h = 0;
+        for (int i = 0; i < s.length(); i++) {
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+        }
+        return h ^ (h >>> 16);
+    }
+}
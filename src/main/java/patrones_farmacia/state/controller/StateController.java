@@ -1,5 +1,6 @@
 package patrones_farmacia.state.controller;
 
+import patrones_farmacia.Singleton.model.EventLog;
 import patrones_farmacia.state.model.Order;
 import patrones_farmacia.state.model.StateOrder;
 import java.util.ArrayList;
@@ -17,7 +18,7 @@ public class StateController {
         if (id == null || id.trim().isEmpty()) throw new IllegalArgumentException("ID inválido");
         Order order = new Order(id);
         orders.add(order);
-        System.out.println("Pedido creado: " + id + " (estado: " + order.getStateName() + ")");
+        if (EventLog.enabled()) EventLog.emit("Pedido creado: " + id + " (estado: " + order.getStateName() + ")");
         return order;
     }
 
@@ -25,16 +26,16 @@ public class StateController {
         Order ord = findOrder(orderId);
         if (ord == null) return false;
         ord.addProduct(productName);
-        System.out.println("Producto '" + productName + "' añadido al pedido " + orderId);
+        if (EventLog.enabled()) EventLog.emit("Producto '" + productName + "' añadido al pedido " + orderId);
         return true;
     }
 
     public boolean processOrder(String orderId) {
         Order ord = findOrder(orderId);
         if (ord == null) return false;
-        System.out.println("Procesando pedido " + orderId + " (estado actual: " + ord.getStateName() + ")");
+        if (EventLog.enabled()) EventLog.emit("Procesando pedido " + orderId + " (estado actual: " + ord.getStateName() + ")");
         ord.process(); 
-        System.out.println("Nuevo estado: " + ord.getStateName());
+        if (EventLog.enabled()) EventLog.emit("Nuevo estado: " + ord.getStateName());
         return true;
     }
 
@@ -42,7 +43,7 @@ public class StateController {
         Order ord = findOrder(orderId);
         if (ord == null) return false;
         ord.setState(state);
-        System.out.println("Estado forzado de " + orderId + " a " + ord.getStateName());
+        if (EventLog.enabled()) EventLog.emit("Estado forzado de " + orderId + " a " + ord.getStateName());
         return true;
     }
 
@@ -1,10 +1,12 @@
 package patrones_farmacia.state.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
+
 public class DeliveredState implements StateOrder {
 
     @Override
     public void manage(Order order) {
-        System.out.println("Pedido " + order.getId() + " ya fue entregado al cliente.");
+        if (EventLog.enabled()) EventLog.emit("Pedido " + order.getId() + " ya fue entregado al cliente.");
     }
 
     @Override
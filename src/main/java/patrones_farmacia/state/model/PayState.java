@@ -1,10 +1,12 @@
 package patrones_farmacia.state.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
+
 public class PayState implements StateOrder {
 
     @Override
     public void manage(Order order) {
-        System.out.println("Pedido " + order.getId() + " pagado, pasa a ENTREGADO.");
+        if (EventLog.enabled()) EventLog.emit("Pedido " + order.getId() + " pagado, pasa a ENTREGADO.");
         order.setState(new DeliveredState());
     }
 
@@ -1,10 +1,12 @@
 package patrones_farmacia.state.model;
 
+import patrones_farmacia.Singleton.model.EventLog;
+
 public class PendientState implements StateOrder {
 
     @Override
     public void manage(Order order) {
-        System.out.println("Pedido " + order.getId() + " confirmado, pasa a estado PAGADO.");
+        if (EventLog.enabled()) EventLog.emit("Pedido " + order.getId() + " confirmado, pasa a estado PAGADO.");
         order.setState(new PayState());
     }
 
@@ -15,6 +15,11 @@ public class DiscountContext {
         return strategy.calculate(total);
     }
 
+    public long applyCents(long totalCents) {
+        if (strategy == null) return totalCents;
+        return strategy.calculateCents(totalCents);
+    }
+
     public String describe() {
         return (strategy != null) ? strategy.getDescription() : "Sin estrategia aplicada";
     }
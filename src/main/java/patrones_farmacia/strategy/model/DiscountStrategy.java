@@ -1,6 +1,9 @@
 package patrones_farmacia.strategy.model;
 
+import patrones_farmacia.util.Money;
+
 public interface DiscountStrategy {
     double calculate(double total);
+    default long calculateCents(long totalCents) { return Money.of(calculate(Money.toDouble(totalCents))); }
     String getDescription();
 }
\ No newline at end of file
@@ -4,5 +4,7 @@ public class NoDiscount implements DiscountStrategy {
     @Override
     public double calculate(double total) { return total; }
     @Override
+    public long calculateCents(long totalCents) { return totalCents; }
+    @Override
     public String getDescription() { return "Sin descuento"; }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package patrones_farmacia.strategy.model;
 
+import patrones_farmacia.util.Money;
+
 public class PercentageDiscount implements DiscountStrategy {
 
     private double percentage;
@@ -13,6 +15,11 @@ public class PercentageDiscount implements DiscountStrategy {
         return total * (1 - percentage / 100.0);
     }
 
+    @Override
+    public long calculateCents(long totalCents) {
+        return Money.plusPercent(totalCents, -percentage);
+    }
+
     @Override
     public String getDescription() {
         return "Descuento " + percentage + "%";
@@ -1,13 +1,17 @@
 package patrones_farmacia.strategy.model;
 
+import patrones_farmacia.util.Money;
+
 public class VIPClientDiscount implements DiscountStrategy {
 
     private double threshold;
     private double vipRate;
+    private long thresholdCents;
 
     public VIPClientDiscount(double threshold, double vipRate) {
         this.threshold = threshold;
         this.vipRate = vipRate;
+        this.thresholdCents = Money.of(threshold);
     }
 
     @Override
@@ -18,6 +22,14 @@ public class VIPClientDiscount implements DiscountStrategy {
         return total;
     }
 
+    @Override
+    public long calculateCents(long totalCents) {
+        if (totalCents >= thresholdCents) {
+            return Money.plusPercent(totalCents, -vipRate);
+        }
+        return totalCents;
+    }
+
     @Override
     public String getDescription() {
         return "Descuento VIP sobre compras superiores a $" + threshold;
@@ -0,0 +1,36 @@
+package patrones_farmacia.util;
+
+/**
+ * Montos de dinero como long en centavos. Todas las operaciones trabajan
+ * sobre primitivos, así que sumar o aplicar porcentajes no crea objetos y
+ * los totales son exactos. Los porcentajes se redondean a diezmilésimas y
+ * los resultados al centavo más cercano.
+ */
+public final class Money {
+
+    private static final long PPM = 1_000_000L;
+
+    private Money() {}
+
+    public static long of(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Suma (o resta, si es negativo) un porcentaje al monto: plusPercent(c, 19)
+     * aplica IVA del 19 % y plusPercent(c, -10) un descuento del 10 %.
+     */
+    public static long plusPercent(long cents, double percent) {
+        long factor = PPM + Math.round(percent * 10_000);
+        return Math.floorDiv(Math.multiplyExact(cents, factor) + PPM / 2, PPM);
+    }
+
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        return ((cents < 0) ? "-" : "") + (abs / 100) + "." + ((abs % 100 < 10) ? "0" : "") + (abs % 100);
+    }
+}
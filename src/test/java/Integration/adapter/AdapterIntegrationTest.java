@@ -139,11 +139,11 @@ class AdapterIntegrationTest {
     }
 
     @Test
-    @DisplayName("Cambia de modo varias veces y mantiene correcto nombre-reportado después de la última acción")
+    @DisplayName("Cobra con varios modos sin cambiar el modo guardado en el adaptador")
     void cambiaDeModoYVerificaNombreFinal() {
         assertTrue(controlador.processPayment("CASH", 1000));
         assertTrue(controlador.processPayment("credit", 2000));
         assertTrue(controlador.processPayment("ewallet", 3000));
-        assertEquals("E-Wallet", adaptador.getName());
+        assertEquals("Efectivo", adaptador.getName());
     }
 }
\ No newline at end of file
@@ -6,12 +6,23 @@ import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.*;
 import patrones_farmacia.Singleton.model.ConfigManager;
 import patrones_farmacia.Singleton.model.GlobalInvent;
+import patrones_farmacia.Singleton.model.AsyncEventSink;
+import patrones_farmacia.Singleton.model.EventLog;
+import patrones_farmacia.Singleton.model.EventSink;
+import patrones_farmacia.Singleton.model.NoOpSink;
 import patrones_farmacia.factoryMethod.controller.FCreator;
 import patrones_farmacia.factoryMethod.model.Medicine;
 import patrones_farmacia.Singleton.controller.InventoryController;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 class ConfigManagerTest {
 
@@ -20,6 +31,7 @@ class ConfigManagerTest {
     private FCreator creator;
     private PrintStream originalOut;
     private ByteArrayOutputStream out;
+    private final EventSink defaultSink = EventLog.getSink();
 
     @BeforeEach
     void setup() {
@@ -38,6 +50,7 @@ class ConfigManagerTest {
 
     @AfterEach
     void tearDown() {
+        EventLog.setSink(defaultSink);
         System.setOut(originalOut);
         global.getAllMedicines().clear();
     }
@@ -228,6 +241,177 @@ class ConfigManagerTest {
         assertNull(global.findMedicine("Nada"));
     }
 
+    @Test
+    void globalInventIndexFindsAmongManyEntries() {
+        for (int i = 0; i < 5000; i++) {
+            global.addMedicine(creator.createMedicine(FCreator.Type.GENERIC, "Sku-" + i, "Lab", i));
+        }
+        assertEquals("Sku-4321", global.findMedicine("SKU-4321").getName());
+        assertTrue(global.removeMedicine("sku-4321"));
+        assertNull(global.findMedicine("Sku-4321"));
+        assertEquals(4999, global.getAllMedicines().size());
+    }
+
+    @Test
+    void globalInventClearThroughListViewClearsIndex() {
+        global.addMedicine(creator.createMedicine(FCreator.Type.GENERIC, "Vista", "Lab", 10));
+        global.getAllMedicines().clear();
+        assertNull(global.findMedicine("Vista"));
+        assertTrue(global.getAllMedicines().isEmpty());
+    }
+
+    @Test
+    void globalInventDuplicateNamesRemovedOneAtATime() {
+        Medicine first = creator.createMedicine(FCreator.Type.GENERIC, "Dup", "L1", 10);
+        Medicine second = creator.createMedicine(FCreator.Type.BRAND, "DUP", "L2", 20);
+        global.addMedicine(first);
+        global.addMedicine(second);
+        assertSame(first, global.findMedicine("dup"));
+        assertTrue(global.removeMedicine("dup"));
+        assertSame(second, global.findMedicine("dup"));
+        assertEquals(1, global.getAllMedicines().size());
+    }
+
+    @Test
+    void globalInventListViewRemoveByIndexKeepsIndexInSync() {
+        Medicine a = creator.createMedicine(FCreator.Type.GENERIC, "IdxA", "L", 1);
+        Medicine b = creator.createMedicine(FCreator.Type.GENERIC, "IdxB", "L", 2);
+        global.addMedicine(a);
+        global.addMedicine(b);
+        assertSame(a, global.getAllMedicines().remove(0));
+        assertNull(global.findMedicine("IdxA"));
+        assertSame(b, global.getAllMedicines().get(0));
+    }
+
+    @Test
+    void globalInventConcurrentTillsKeepIndexConsistent() throws Exception {
+        int tills = 12;
+        int perTill = 2000;
+        ExecutorService es = Executors.newFixedThreadPool(tills + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < tills; t++) {
+            final int till = t;
+            futures.add(es.submit(() -> {
+                start.await();
+                for (int i = 0; i < perTill; i++) {
+                    String name = "Caja" + till + "-" + i;
+                    global.addMedicine(creator.createMedicine(FCreator.Type.GENERIC, name, "Lab", i));
+                    assertNotNull(global.findMedicine(name.toUpperCase()));
+                    if (i % 2 == 0) assertTrue(global.removeMedicine(name));
+                }
+                return null;
+            }));
+        }
+        Future<?> reader = es.submit(() -> {
+            start.await();
+            while (running.get()) {
+                for (Medicine m : global.getAllMedicines()) assertNotNull(m.getName());
+                global.showInventory();
+            }
+            return null;
+        });
+        start.countDown();
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        running.set(false);
+        reader.get(30, TimeUnit.SECONDS);
+        es.shutdownNow();
+        assertEquals(tills * perTill / 2, global.getAllMedicines().size());
+        assertEquals(tills * perTill / 2, global.snapshot().size());
+    }
+
+    @Test
+    void globalInventConcurrentLookupsFindTheRightMedicine() throws Exception {
+        int threads = 4;
+        for (int i = 0; i < 1_000; i++) {
+            global.addMedicine(creator.createMedicine(FCreator.Type.GENERIC, "Hot-" + i, "Lab", i));
+        }
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            futures.add(es.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    int n = (i + offset * 250) % 1_000;
+                    Medicine m = global.findMedicine("hot-" + n);
+                    assertNotNull(m);
+                    assertEquals(n, m.getPrice(), 0.0);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        es.shutdownNow();
+    }
+
+    @Test
+    void globalInventIndexedViewFollowsInsertionOrder() {
+        for (int i = 0; i < 500; i++) {
+            global.addMedicine(creator.createMedicine(FCreator.Type.GENERIC, "Orden-" + i, "Lab", i));
+        }
+        List<Medicine> view = global.getAllMedicines();
+        for (int i = 0; i < view.size(); i++) assertEquals("Orden-" + i, view.get(i).getName());
+        global.removeMedicine("Orden-0");
+        assertEquals("Orden-1", view.get(0).getName());
+        assertEquals(499, view.size());
+    }
+
+    @Test
+    void globalInventIndexedLoopWhileAddingStaysInRange() throws Exception {
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Future<?> writer = es.submit(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                global.addMedicine(creator.createMedicine(FCreator.Type.GENERIC, "Alta-" + i, "Lab", i));
+            }
+            running.set(false);
+            return null;
+        });
+        List<Medicine> view = global.getAllMedicines();
+        while (running.get()) {
+            for (int i = 0; i < view.size(); i++) assertNotNull(view.get(i));
+        }
+        writer.get(30, TimeUnit.SECONDS);
+        es.shutdownNow();
+        assertEquals(20_000, view.size());
+    }
+
+    @Test
+    void noOpSinkSilencesConsoleOutput() {
+        EventLog.setSink(new NoOpSink());
+        InventoryController controller = new InventoryController();
+        controller.registerMedicine(creator.createMedicine(FCreator.Type.GENERIC, "Silencio", "Lab", 1));
+        controller.showInventory();
+        controller.removeMedicine("Silencio");
+        assertFalse(EventLog.enabled());
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    void asyncSinkDeliversMessagesOffTheCallerThread() throws Exception {
+        List<String> received = new java.util.concurrent.CopyOnWriteArrayList<>();
+        List<Thread> threads = new java.util.concurrent.CopyOnWriteArrayList<>();
+        EventSink capture = new EventSink() {
+            @Override
+            public boolean isEnabled() { return true; }
+
+            @Override
+            public void emit(String message) {
+                threads.add(Thread.currentThread());
+                received.add(message);
+            }
+        };
+        AsyncEventSink async = new AsyncEventSink(capture, 64);
+        EventLog.setSink(async);
+        new InventoryController().removeMedicine("NoEsta");
+        async.close(5, TimeUnit.SECONDS);
+        assertEquals(1, received.size());
+        assertTrue(received.get(0).contains("NoEsta"));
+        assertNotSame(Thread.currentThread(), threads.get(0));
+        assertEquals(0, async.getDroppedCount());
+    }
+
     @Test
     void toStringReflectsStateAfterChanges() {
         cfg.setPharmacyName("Reflex");
@@ -239,4 +423,23 @@ class ConfigManagerTest {
         assertTrue(s.contains("producción"));
         assertTrue(s.contains("jdbc:reflex://x"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void asyncSinkDropsMessagesAfterClose() throws Exception {
+        List<String> received = new java.util.concurrent.CopyOnWriteArrayList<>();
+        EventSink capture = new EventSink() {
+            @Override
+            public boolean isEnabled() { return true; }
+
+            @Override
+            public void emit(String message) { received.add(message); }
+        };
+        AsyncEventSink async = new AsyncEventSink(capture, 16);
+        async.emit("antes");
+        async.close(5, TimeUnit.SECONDS);
+        async.emit("despues");
+        assertEquals(List.of("antes"), received);
+        assertEquals(1, async.getDroppedCount());
+        assertEquals(0, async.getPending());
+    }
+}
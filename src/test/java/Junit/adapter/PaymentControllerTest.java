@@ -14,6 +14,7 @@ import java.io.InputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -529,4 +530,285 @@ class PaymentControllerTest {
         assertFalse(ew.transferCash(500.01));
         assertEquals(500, ew.getBalance(), 0.01);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("pay(PayMode, monto) no depende del modo guardado en el adaptador")
+    void statelessPayIgnoresCurrentMode() {
+        setAdapterMode("CREDIT");
+        double before = cash.getCashAvailable();
+        assertTrue(adapter.pay(PayMode.CASH, 500));
+        assertEquals(before - 500, cash.getCashAvailable(), 0.001);
+        assertEquals("Tarjeta de Crédito", adapter.getName());
+        assertFalse(adapter.pay(PayMode.CASH, -1));
+        assertFalse(adapter.pay((PayMode) null, 1));
+    }
+
+    @Test
+    @DisplayName("PayMode.parse no distingue mayúsculas y devuelve null si no existe")
+    void payModeParse() {
+        assertEquals(PayMode.EWALLET, PayMode.parse("eWallet"));
+        assertEquals(PayMode.CREDIT, PayMode.parse("CREDIT"));
+        assertNull(PayMode.parse("BITCOIN"));
+        assertNull(PayMode.parse(null));
+    }
+
+    @Test
+    @DisplayName("Adaptador compartido entre hilos cobra cada pago con su propio modo")
+    void sharedAdapterRoutesEachPaymentToItsMode() throws Exception {
+        CashMethod c = new CashMethod(1_000_000);
+        EWalletMethod w = new EWalletMethod("ACC", 1_000_000);
+        AdapterPayMethod shared = new AdapterPayMethod(c, null, w);
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String mode = (t % 2 == 0) ? "CASH" : "EWALLET";
+            tasks.add(() -> {
+                boolean ok = true;
+                for (int i = 0; i < 200; i++) ok &= shared.pay(mode, 1);
+                return ok;
+            });
+        }
+        for (Future<Boolean> f : es.invokeAll(tasks)) assertTrue(f.get());
+        es.shutdownNow();
+        assertFalse(shared.pay(PayMode.CREDIT, 1));
+    }
+
+    @Test
+    @DisplayName("Débitos concurrentes sobre la misma billetera nunca la sobregiran")
+    void concurrentDebitsNeverOverdraw() throws Exception {
+        EWalletMethod w = new EWalletMethod("HOT", 1000);
+        int threads = 8;
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(es.submit(() -> {
+                start.await();
+                int ok = 0;
+                for (int i = 0; i < 500; i++) if (w.transferCash(0.5)) ok++;
+                return ok;
+            }));
+        }
+        start.countDown();
+        int approved = 0;
+        for (Future<Integer> f : results) approved += f.get(30, TimeUnit.SECONDS);
+        es.shutdownNow();
+        assertEquals(2000, approved);
+        assertEquals(0, w.getBalance(), 0.0);
+    }
+
+    @Test
+    @DisplayName("Los saldos se llevan en centavos exactos")
+    void balancesAreExactCents() {
+        CashMethod c = new CashMethod(0.3);
+        assertTrue(c.cashPay(0.1));
+        assertTrue(c.cashPay(0.2));
+        assertEquals(0.0, c.getCashAvailable(), 0.0);
+        assertFalse(c.cashPay(0.01));
+        assertEquals(1234, Balance.toCents(12.34));
+    }
+
+    @Test
+    @DisplayName("Autorizaciones concurrentes viajan en pocos lotes y cada una recibe su respuesta")
+    void batchingAdapterGroupsAuthorizations() throws Exception {
+        AdapterPayMethod cuentas = new AdapterPayMethod(new CashMethod(0), new CreditCardMethod("N", "O", "C", 100), null);
+        SimulatedGateway gateway = new SimulatedGateway(cuentas, 20, TimeUnit.MILLISECONDS);
+        BatchingPayAdapter batching = new BatchingPayAdapter(gateway, 10, TimeUnit.MILLISECONDS, 64);
+        try {
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) results.add(batching.authorize(PayMode.CREDIT, 1000));
+            CompletableFuture<Boolean> sinFondos = batching.authorize(PayMode.CASH, 1);
+            CompletableFuture<Boolean> sinCuenta = batching.authorize("EWALLET", 1);
+
+            int approved = 0;
+            for (CompletableFuture<Boolean> f : results) if (f.get(5, TimeUnit.SECONDS)) approved++;
+            assertEquals(10, approved);
+            assertFalse(sinFondos.get(5, TimeUnit.SECONDS));
+            assertFalse(sinCuenta.get(5, TimeUnit.SECONDS));
+            assertEquals(42, batching.getRequestCount());
+            assertTrue(batching.getBatchCount() < 42);
+            assertEquals(batching.getBatchCount(), gateway.getRoundTrips());
+        } finally {
+            batching.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Vista síncrona del adaptador por lotes y rechazo tras cerrar")
+    void batchingAdapterSyncViewAndClose() throws Exception {
+        AdapterPayMethod cuentas = new AdapterPayMethod(null, null, new EWalletMethod("W", 50));
+        BatchingPayAdapter batching = new BatchingPayAdapter(new SimulatedGateway(cuentas, 0, TimeUnit.MILLISECONDS), 1, TimeUnit.MILLISECONDS, 8);
+        PayMethodInterface billetera = batching.forMode(PayMode.EWALLET);
+        assertEquals("E-Wallet", billetera.getName());
+        assertTrue(billetera.pay(30));
+        assertFalse(billetera.pay(30));
+        assertFalse(billetera.pay(-1));
+
+        batching.close();
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> batching.authorize(PayMode.EWALLET, 1).get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    @DisplayName("Si la pasarela falla, cada futuro del lote termina con el error")
+    void batchingAdapterPropagatesGatewayFailure() {
+        PaymentGateway caida = (modes, amounts, count) -> { throw new IllegalStateException("sin conexión"); };
+        BatchingPayAdapter batching = new BatchingPayAdapter(caida, 1, TimeUnit.MILLISECONDS, 4);
+        try {
+            CompletableFuture<Boolean> f = batching.authorize(PayMode.CREDIT, 100);
+            CompletionException e = assertThrows(CompletionException.class, f::join);
+            assertEquals("sin conexión", e.getCause().getMessage());
+        } finally {
+            batching.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Reintento con la misma clave de idempotencia no cobra dos veces")
+    void idempotentRetryDoesNotChargeTwice() {
+        double before = cash.getCashAvailable();
+        assertTrue(controller.processPayment("PAGO-1", "CASH", 1000));
+        assertTrue(controller.processPayment("PAGO-1", "CASH", 1000));
+        assertEquals(before - 1000, cash.getCashAvailable(), 0.001);
+        assertEquals(1, controller.getIdempotencyCache().getHitCount());
+
+        assertTrue(controller.processPayment("PAGO-2", "CASH", 1000));
+        assertEquals(before - 2000, cash.getCashAvailable(), 0.001);
+        assertThrows(IllegalArgumentException.class, () -> controller.processPayment("PAGO-2", "CASH", 5));
+    }
+
+    @Test
+    @DisplayName("Las claves vencen y la caché no supera su capacidad")
+    void idempotencyCacheExpiresAndStaysBounded() {
+        long[] now = {0};
+        IdempotencyCache cache = new IdempotencyCache(3, 10, TimeUnit.SECONDS, () -> now[0]);
+        PaymentController c = new PaymentController(adapter, cache);
+        double before = cash.getCashAvailable();
+
+        assertTrue(c.processPaymentCents("K", "CASH", 100));
+        now[0] = TimeUnit.SECONDS.toNanos(5);
+        assertTrue(c.processPaymentCents("K", "CASH", 100));
+        assertEquals(before - 1, cash.getCashAvailable(), 0.001);
+
+        now[0] = TimeUnit.SECONDS.toNanos(11);
+        assertTrue(c.processPaymentCents("K", "CASH", 100));
+        assertEquals(before - 2, cash.getCashAvailable(), 0.001);
+
+        for (int i = 0; i < 10; i++) c.processPaymentCents("X-" + i, "CASH", 1);
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    @DisplayName("Un pago en curso no se descarta por capacidad ni por vencimiento")
+    void inFlightPaymentIsNeverEvicted() throws Exception {
+        long[] now = {0};
+        IdempotencyCache cache = new IdempotencyCache(1, 10, TimeUnit.SECONDS, () -> now[0]);
+        AtomicInteger charges = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> first = es.submit(() -> cache.execute("LENTO", 1, () -> {
+                charges.incrementAndGet();
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            assertTrue(cache.execute("OTRO", 1, () -> true));
+            assertEquals(1, cache.size());
+            now[0] = TimeUnit.SECONDS.toNanos(20);
+            Future<Boolean> retry = es.submit(() -> cache.execute("LENTO", 1, () -> charges.incrementAndGet() > 0));
+            for (int i = 0; i < 250 && cache.getHitCount() == 0; i++) Thread.sleep(20);
+            release.countDown();
+
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertTrue(retry.get(5, TimeUnit.SECONDS));
+            assertEquals(1, charges.get());
+            assertEquals(0, cache.size());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Un pago trabado no impide descartar las demás claves")
+    void stuckPaymentDoesNotBlockEviction() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(10, 1, TimeUnit.MINUTES);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> stuck = es.submit(() -> cache.execute("TRABADO", 1, () -> {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 10_000; i++) cache.execute("K-" + i, 1, () -> true);
+            assertTrue(cache.size() <= 11, "Tamaño: " + cache.size());
+
+            release.countDown();
+            assertTrue(stuck.get(5, TimeUnit.SECONDS));
+            cache.execute("OTRA", 1, () -> true);
+            assertTrue(cache.size() <= 10, "Tamaño: " + cache.size());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Quien espera un pago que falla recibe la excepción original")
+    void waitingRetryGetsOriginalException() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(10, 1, TimeUnit.MINUTES);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> first = es.submit(() -> cache.execute("FALLA", 1, () -> {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("pasarela caída");
+            }));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            Future<Boolean> retry = es.submit(() -> cache.execute("FALLA", 1, () -> true));
+            for (int i = 0; i < 250 && cache.getHitCount() == 0; i++) Thread.sleep(20);
+            release.countDown();
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> retry.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals("pasarela caída", e.getCause().getMessage());
+            assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertEquals(0, cache.size());
+            assertTrue(cache.execute("FALLA", 1, () -> true));
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Reintentos simultáneos con la misma clave esperan al primer cobro")
+    void concurrentRetriesShareOnePayment() throws Exception {
+        CashMethod c = new CashMethod(1000);
+        PaymentController pc = new PaymentController(new AdapterPayMethod(c, null, null));
+        ExecutorService es = Executors.newFixedThreadPool(8);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) tasks.add(() -> pc.processPayment("MISMO", "CASH", 100));
+        for (Future<Boolean> f : es.invokeAll(tasks)) assertTrue(f.get());
+        es.shutdownNow();
+        assertEquals(900, c.getCashAvailable(), 0.001);
+    }
+}
@@ -9,6 +9,11 @@ import patrones_farmacia.chainOfResponsability.controller.PaymentValidationHandl
 import patrones_farmacia.chainOfResponsability.controller.StockValidationHandler;
 import patrones_farmacia.chainOfResponsability.model.Handler;
 import patrones_farmacia.chainOfResponsability.model.BaseHandler;
+import patrones_farmacia.chainOfResponsability.model.InventoryIndex;
+import patrones_farmacia.chainOfResponsability.model.ParallelHandler;
+import patrones_farmacia.Singleton.model.GlobalInvent;
+import patrones_farmacia.chainOfResponsability.model.ValidationPipeline;
+import patrones_farmacia.chainOfResponsability.model.ValidationResult;
 import patrones_farmacia.facade.model.Sale;
 import patrones_farmacia.factoryMethod.controller.FCreator;
 import patrones_farmacia.factoryMethod.model.Medicine;
@@ -19,6 +24,7 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @DisplayName("Pruebas ampliadas - Chain of Responsibility para Ventas")
 class ChainHandlerTest {
@@ -579,4 +585,188 @@ class ChainHandlerTest {
     void chainConsoleMainExecutes() {
         assertDoesNotThrow(() -> patrones_farmacia.chainOfResponsability.view.ChainConsole.main(new String[]{}));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Pipeline compilado se comporta igual que la cadena y se reutiliza")
+    void compiledPipelineMatchesChain() {
+        Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "Paracetamol", "GenFarma", 3500);
+        inventory.add(m);
+        adapter.setMode("CASH");
+        ValidationPipeline pipeline = ValidationPipeline.compile(cadenaValidacion);
+        assertEquals(3, pipeline.size());
+
+        Sale ok = new Sale("PIPE-1", "C");
+        ok.addMedicine(m);
+        assertTrue(pipeline.handle(ok));
+        assertTrue(baos.toString().contains("Venta PIPE-1 validada"));
+
+        Sale missing = new Sale("PIPE-2", "C");
+        missing.addMedicine(creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "NoStock", "L", 10));
+        ValidationResult result = pipeline.validate(missing);
+        assertFalse(result.isValid());
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.rejectedBy(StockValidationHandler.class));
+        assertFalse(baos.toString().contains("Venta PIPE-2 validada"));
+
+        Sale again = new Sale("PIPE-3", "C");
+        again.addMedicine(m);
+        assertTrue(pipeline.validate(again).isValid());
+    }
+
+    @Test
+    @DisplayName("Pipeline en modo COLLECT_ALL reporta todos los rechazos sin cobrar una venta rechazada")
+    void collectAllReportsEveryFailure() {
+        adapter.setMode("CASH");
+        StockValidationHandler enLista = new StockValidationHandler(inventory);
+        StockValidationHandler indexada = new StockValidationHandler(InventoryIndex.of(inventory));
+        ValidationPipeline pipeline = ValidationPipeline.of(ValidationPipeline.Mode.COLLECT_ALL,
+                enLista,
+                new PaymentValidationHandler(adapter),
+                indexada,
+                new FinalizeSaleHandler());
+        Sale venta = new Sale("PIPE-ALL", "C");
+        venta.addMedicine(creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "NoStock", "L", 5000));
+
+        ValidationResult result = pipeline.validate(venta);
+        assertEquals(List.of(enLista, indexada), result.getFailures());
+        assertFalse(result.rejectedBy(PaymentValidationHandler.class));
+        assertFalse(pipeline.handle(venta));
+        assertEquals(20000, cash.getCashAvailable(), 0.001);
+        assertFalse(baos.toString().contains("Venta PIPE-ALL validada"));
+    }
+
+    @Test
+    @DisplayName("Compilar un pipeline no modifica la cadena original")
+    void compileLeavesChainUntouched() {
+        Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "Paracetamol", "GenFarma", 3500);
+        inventory.add(m);
+        adapter.setMode("CASH");
+        Handler pago = ((BaseHandler) cadenaValidacion).getNext();
+        ValidationPipeline pipeline = ValidationPipeline.compile(cadenaValidacion);
+        ValidationPipeline.of(ValidationPipeline.Mode.COLLECT_ALL, cadenaValidacion, pago);
+        assertSame(pago, ((BaseHandler) cadenaValidacion).getNext());
+        assertNotNull(((BaseHandler) pago).getNext());
+
+        Sale venta = new Sale("PIPE-INTACTA", "C");
+        venta.addMedicine(m);
+        assertTrue(pipeline.handle(venta));
+        assertTrue(cadenaValidacion.handle(venta));
+        assertEquals(20000 - 2 * 3500, cash.getCashAvailable(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Handler propio sin BaseHandler funciona como etapa del pipeline")
+    void customHandlerPlugsIntoPipeline() {
+        Handler rechazaTodo = new Handler() {
+            @Override
+            public void setNext(Handler next) { }
+
+            @Override
+            public boolean handle(Sale sale) { return false; }
+        };
+        ValidationPipeline pipeline = ValidationPipeline.of(ValidationPipeline.Mode.SHORT_CIRCUIT,
+                new FinalizeSaleHandler(), rechazaTodo);
+        assertFalse(pipeline.handle(new Sale("PIPE-X", "C")));
+        assertSame(rechazaTodo, pipeline.validate(new Sale("PIPE-Y", "C")).getFailures().get(0));
+    }
+
+    @Test
+    @DisplayName("Validación de stock indexada reporta todos los productos faltantes")
+    void indexedStockReportsEveryMissingItem() {
+        for (int i = 0; i < 1000; i++) {
+            inventory.add(creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "Sku-" + i, "L", 1));
+        }
+        StockValidationHandler indexed = new StockValidationHandler(InventoryIndex.of(inventory));
+        Sale venta = new Sale("IDX-1", "C");
+        venta.addMedicine(creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "SKU-10", "L", 1));
+        venta.addMedicine(creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "Falta-A", "L", 1));
+        venta.addMedicine(creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "sku-999", "L", 1));
+        venta.addMedicine(creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "Falta-B", "L", 1));
+
+        assertEquals(List.of("Falta-A", "Falta-B"), indexed.findMissing(venta));
+        assertEquals(List.of("Falta-A", "Falta-B"), new StockValidationHandler(inventory).findMissing(venta));
+        assertFalse(indexed.handle(venta));
+        String out = baos.toString();
+        assertTrue(out.contains("No hay stock del producto Falta-A"));
+        assertTrue(out.contains("No hay stock del producto Falta-B"));
+    }
+
+    @Test
+    @DisplayName("Validación de stock sobre el inventario global ve los cambios en vivo")
+    void globalInventIndexIsLive() {
+        GlobalInvent global = GlobalInvent.getInstance();
+        global.getAllMedicines().clear();
+        StockValidationHandler indexed = new StockValidationHandler(InventoryIndex.of(global));
+        Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.BRAND, "Dolex", "GSK", 5000);
+        Sale venta = new Sale("IDX-G", "C");
+        venta.addMedicine(m);
+        assertFalse(indexed.handle(venta));
+        global.addMedicine(m);
+        assertTrue(indexed.handle(venta));
+        global.getAllMedicines().clear();
+    }
+
+    private static Handler validacion(long millis, boolean result, AtomicInteger calls) {
+        return new BaseHandler() {
+            @Override
+            public boolean handle(Sale sale) {
+                calls.incrementAndGet();
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                return result && handleNext(sale);
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Validaciones paralelas tardan lo que la más lenta y luego siguen la cadena")
+    void parallelValidatorsJoinBeforeNext() {
+        AtomicInteger calls = new AtomicInteger();
+        ParallelHandler paralelo = new ParallelHandler(
+                validacion(300, true, calls), validacion(300, true, calls), validacion(300, true, calls));
+        paralelo.setNext(new FinalizeSaleHandler());
+        long start = System.nanoTime();
+        assertTrue(paralelo.handle(new Sale("PAR-OK", "C")));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(3, calls.get());
+        assertTrue(millis < 850, "Tardó " + millis + " ms");
+        assertTrue(baos.toString().contains("Venta PAR-OK validada"));
+    }
+
+    @Test
+    @DisplayName("Validaciones paralelas fallan en cuanto una rechaza")
+    void parallelValidatorsFailFast() {
+        AtomicInteger calls = new AtomicInteger();
+        ParallelHandler paralelo = new ParallelHandler(
+                validacion(5000, true, calls), validacion(10, false, calls));
+        paralelo.setNext(new FinalizeSaleHandler());
+        long start = System.nanoTime();
+        assertFalse(paralelo.handle(new Sale("PAR-KO", "C")));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertFalse(baos.toString().contains("Venta PAR-KO validada"));
+
+        ParallelHandler lento = new ParallelHandler(validacion(5000, true, calls));
+        lento.setTimeout(50, TimeUnit.MILLISECONDS);
+        assertFalse(lento.handle(new Sale("PAR-TO", "C")));
+    }
+
+    @Test
+    @DisplayName("Validaciones paralelas usan el executor recibido")
+    void parallelValidatorsUseGivenExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            ParallelHandler paralelo = new ParallelHandler(executor,
+                    validacion(10, true, calls), validacion(10, true, calls));
+            assertTrue(paralelo.handle(new Sale("PAR-EX", "C")));
+            assertEquals(2, calls.get());
+            assertThrows(IllegalArgumentException.class, () -> new ParallelHandler((ExecutorService) null, validacion(10, true, calls)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
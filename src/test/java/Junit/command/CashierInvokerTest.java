@@ -19,6 +19,8 @@ import java.io.ByteArrayInputStream;
 import java.util.concurrent.*;
 import java.util.List;
 import java.util.ArrayList;
+import java.nio.file.Path;
+import org.junit.jupiter.api.io.TempDir;
 
 @DisplayName("Pruebas del Patrón Command para Gestión de Ventas - Ampliadas")
 class CashierInvokerTest {
@@ -733,4 +735,364 @@ class CashierInvokerTest {
         assertTrue(res);
         assertEquals(49, receptorVentas.getAllSales().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Cancelar muchas ventas conserva el orden de registro de las restantes")
+    void cancelManySalesKeepsInsertionOrder() {
+        for (int i = 0; i < 20000; i++) {
+            receptorVentas.registerSale(new Sale("ORD-" + i, "C"));
+        }
+        for (int i = 0; i < 20000; i += 2) {
+            assertTrue(receptorVentas.cancelSale("ord-" + i));
+        }
+        List<Sale> sales = receptorVentas.getAllSales();
+        assertEquals(10000, sales.size());
+        for (int i = 0; i < sales.size(); i++) {
+            assertEquals("ORD-" + (2 * i + 1), sales.get(i).getId());
+        }
+        assertNull(receptorVentas.findSale("ORD-0"));
+        assertNotNull(receptorVentas.findSale("ord-1"));
+    }
+
+    @Test
+    @DisplayName("Ventas con el mismo ID se cancelan en orden de registro")
+    void duplicateIdsCancelInRegistrationOrder() {
+        Sale first = new Sale("DUP", "A");
+        Sale second = new Sale("dup", "B");
+        receptorVentas.registerSale(first);
+        receptorVentas.registerSale(second);
+        assertTrue(receptorVentas.cancelSale("Dup"));
+        assertEquals(1, receptorVentas.getAllSales().size());
+        assertSame(second, receptorVentas.getAllSales().get(0));
+        assertTrue(receptorVentas.cancelSale("DUP"));
+        assertFalse(receptorVentas.cancelSale("DUP"));
+        assertTrue(receptorVentas.getAllSales().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Historial acotado descarta los comandos más antiguos")
+    void boundedHistoryDiscardsOldest() {
+        CashierInvoker ci = new CashierInvoker(3);
+        for (int i = 0; i < 5; i++) {
+            ci.executeCommand(new RegisterSaleCommand(receptorVentas, new Sale("RING-" + i, "C")));
+        }
+        assertEquals(3, ci.getHistorySize());
+        assertEquals(2, ci.getDiscardedCount());
+        for (int i = 0; i < 5; i++) ci.undoLast();
+        assertEquals(2, receptorVentas.getAllSales().size());
+        assertEquals("RING-0", receptorVentas.getAllSales().get(0).getId());
+        assertTrue(salidaConsola.toString().contains("No hay operaciones para deshacer."));
+    }
+
+    @Test
+    @DisplayName("Historial en disco permite deshacer más allá de la capacidad en memoria")
+    void spilledHistoryCanStillBeUndone(@TempDir Path dir) throws Exception {
+        try (HistorySpill spill = new HistorySpill(dir.resolve("history.bin"), receptorVentas)) {
+            CashierInvoker ci = new CashierInvoker(2, spill);
+            for (int i = 0; i < 6; i++) {
+                Sale s = new Sale("SPILL-" + i, "C");
+                s.addMedicine(creadorMedicamentos.createMedicine(FCreator.Type.CONTROLLED, "Morfina", "INV-1", 900));
+                ci.executeCommand(new RegisterSaleCommand(receptorVentas, s));
+            }
+            assertEquals(4, spill.size());
+            assertEquals(6, ci.getHistorySize());
+            assertEquals(0, ci.getDiscardedCount());
+            for (int i = 0; i < 6; i++) ci.undoLast();
+            assertTrue(receptorVentas.getAllSales().isEmpty());
+            assertEquals(0, spill.sizeInBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("El diario de comandos reconstruye el receptor al reiniciar")
+    void journalReplayRebuildsReceiver(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("cashier.journal");
+        Medicine dolex = creadorMedicamentos.createMedicine(FCreator.Type.BRAND, "Dolex", "GSK", 5000);
+        try (CommandJournal journal = new CommandJournal(file)) {
+            CashierInvoker ci = new CashierInvoker();
+            ci.setJournal(journal);
+            for (int i = 0; i < 3; i++) {
+                Sale s = new Sale("WAL-" + i, "C" + i);
+                s.addMedicine(dolex);
+                s.addMedicine(creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "Acetaminofen", "MK", 1200));
+                ci.executeCommand(new RegisterSaleCommand(receptorVentas, s));
+            }
+            ci.executeCommand(new CancelSaleCommand(receptorVentas, "WAL-0"));
+            ci.executeCommand(new ReturnProductCommand(receptorVentas, "WAL-1", dolex));
+            ci.executeCommand(new RegisterSaleCommand(receptorVentas, new Sale("WAL-UNDONE", "C")));
+            ci.undoLast();
+            assertEquals(7, journal.getAppendedCount());
+        }
+        java.nio.file.Files.write(file, new byte[] { 0, 0, 0, 42, 1 }, java.nio.file.StandardOpenOption.APPEND);
+
+        SaleReceiver restored = new SaleReceiver();
+        try (CommandJournal journal = new CommandJournal(file)) {
+            assertEquals(7, journal.replay(restored));
+        }
+        assertEquals(2, restored.getAllSales().size());
+        assertEquals("WAL-1", restored.getAllSales().get(0).getId());
+        assertEquals(1, restored.getAllSales().get(0).getItems().size());
+        assertEquals("Acetaminofen", restored.getAllSales().get(0).getItems().get(0).getName());
+        assertEquals(2, restored.findSale("WAL-2").getItems().size());
+        assertNull(restored.findSale("WAL-UNDONE"));
+    }
+
+    @Test
+    @DisplayName("Un comando que falla al ejecutarse no queda en el diario")
+    void failedCommandIsNotJournaled(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("failed.journal");
+        try (CommandJournal journal = new CommandJournal(file)) {
+            invocadorCajero.setJournal(journal);
+            invocadorCajero.executeCommand(new RegisterSaleCommand(receptorVentas, new Sale("BIEN", "C")));
+            assertThrows(NullPointerException.class,
+                    () -> invocadorCajero.executeCommand(new RegisterSaleCommand(receptorVentas, null)));
+            assertEquals(1, journal.getAppendedCount());
+        }
+        SaleReceiver restored = new SaleReceiver();
+        try (CommandJournal journal = new CommandJournal(file)) {
+            assertEquals(1, journal.replay(restored));
+        }
+        assertEquals(1, restored.getAllSales().size());
+    }
+
+    @Test
+    @DisplayName("Un lote que falla a mitad de un tramo de registros no deja ventas ni entra al diario")
+    void failedBatchIsRolledBackAndNotJournaled(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("batch.journal");
+        try (CommandJournal journal = new CommandJournal(file)) {
+            invocadorCajero.setJournal(journal);
+            invocadorCajero.executeCommand(new RegisterSaleCommand(receptorVentas, new Sale("PREVIA", "C")));
+            List<Command> batch = new ArrayList<>();
+            batch.add(new RegisterSaleCommand(receptorVentas, new Sale("LOTE-1", "C")));
+            batch.add(new RegisterSaleCommand(receptorVentas, new Sale("LOTE-2", "C")));
+            batch.add(new RegisterSaleCommand(receptorVentas, null));
+            batch.add(new RegisterSaleCommand(receptorVentas, new Sale("LOTE-3", "C")));
+            assertThrows(NullPointerException.class, () -> invocadorCajero.executeBatch(batch));
+            assertEquals(1, journal.getAppendedCount());
+            assertEquals(1, invocadorCajero.getHistorySize());
+        }
+        assertEquals(1, receptorVentas.getAllSales().size());
+        assertNull(receptorVentas.findSale("LOTE-1"));
+        SaleReceiver restored = new SaleReceiver();
+        try (CommandJournal journal = new CommandJournal(file)) {
+            assertEquals(1, journal.replay(restored));
+        }
+        assertEquals(1, restored.getAllSales().size());
+    }
+
+    @Test
+    @DisplayName("Con un diario compartido, replay respeta el orden real entre cajas")
+    void sharedJournalKeepsCrossTillOrder(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("shared.journal");
+        int sales = 2000;
+        MultiCashier cashiers = new MultiCashier(receptorVentas, 2);
+        try (CommandJournal journal = new CommandJournal(file, false)) {
+            cashiers.setJournal(journal);
+            ExecutorService es = Executors.newFixedThreadPool(2);
+            Future<?> registers = es.submit(() -> {
+                for (int i = 0; i < sales; i++) {
+                    cashiers.executeCommand(0, new RegisterSaleCommand(receptorVentas, new Sale("X" + i, "C")));
+                }
+            });
+            Future<?> cancels = es.submit(() -> {
+                for (int i = 0; i < sales; i++) {
+                    while (receptorVentas.findSale("X" + i) == null) Thread.onSpinWait();
+                    cashiers.executeCommand(1, new CancelSaleCommand(receptorVentas, "X" + i));
+                }
+            });
+            registers.get(30, TimeUnit.SECONDS);
+            cancels.get(30, TimeUnit.SECONDS);
+            es.shutdown();
+        }
+        assertTrue(receptorVentas.getAllSales().isEmpty());
+
+        SaleReceiver restored = new SaleReceiver();
+        try (CommandJournal reopened = new CommandJournal(file)) {
+            assertEquals(2 * sales, reopened.replay(restored));
+        }
+        assertTrue(restored.getAllSales().isEmpty(), "replay resucitó ventas canceladas");
+    }
+
+    @Test
+    @DisplayName("Si el diario no guarda el comando, se deshace y no entra al historial")
+    void journalFailureRollsBackCommand(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("closed.journal");
+        CommandJournal journal = new CommandJournal(file);
+        invocadorCajero.setJournal(journal);
+        invocadorCajero.executeCommand(new RegisterSaleCommand(receptorVentas, new Sale("GUARDADA", "C")));
+        journal.close();
+
+        assertThrows(java.io.UncheckedIOException.class,
+                () -> invocadorCajero.executeCommand(new RegisterSaleCommand(receptorVentas, new Sale("PERDIDA", "C"))));
+        assertNull(receptorVentas.findSale("PERDIDA"));
+        assertEquals(1, invocadorCajero.getHistorySize());
+
+        assertThrows(java.io.UncheckedIOException.class, () -> invocadorCajero.undoLast());
+        assertNotNull(receptorVentas.findSale("GUARDADA"));
+        assertEquals(1, receptorVentas.getAllSales().size());
+        assertEquals(1, invocadorCajero.getHistorySize());
+
+        SaleReceiver restored = new SaleReceiver();
+        try (CommandJournal reopened = new CommandJournal(file)) {
+            assertEquals(1, reopened.replay(restored));
+        }
+        assertEquals(1, restored.getAllSales().size());
+        assertNotNull(restored.findSale("GUARDADA"));
+    }
+
+    @Test
+    @DisplayName("Tras una escritura fallida el diario rechaza los registros siguientes")
+    void journalFailsClosedAfterWriteError(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("broken.journal");
+        CommandJournal journal = new CommandJournal(file);
+        journal.append(new CancelSaleCommand(receptorVentas, "ANTES"));
+        journal.close();
+
+        assertThrows(java.io.UncheckedIOException.class, () -> journal.append(new CancelSaleCommand(receptorVentas, "PERDIDO")));
+        assertThrows(java.io.UncheckedIOException.class, () -> journal.append(new CancelSaleCommand(receptorVentas, "DESPUES")));
+
+        try (CommandJournal reopened = new CommandJournal(file)) {
+            assertEquals(1, reopened.replay(new SaleReceiver()));
+        }
+    }
+
+    @Test
+    @DisplayName("Escrituras concurrentes al diario comparten volcados a disco")
+    void journalGroupsConcurrentCommits(@TempDir Path dir) throws Exception {
+        int threads = 8;
+        int perThread = 50;
+        try (CommandJournal journal = new CommandJournal(dir.resolve("group.journal"))) {
+            ExecutorService es = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int till = t;
+                futures.add(es.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        journal.append(new CancelSaleCommand(receptorVentas, "G-" + till + "-" + i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+            es.shutdown();
+            assertEquals(threads * perThread, journal.getAppendedCount());
+            assertTrue(journal.getSyncCount() <= journal.getAppendedCount());
+            assertEquals(threads * perThread, journal.replay(new SaleReceiver()));
+        }
+    }
+
+    @Test
+    @DisplayName("Varias cajas comparten el receptor y cada una deshace solo lo suyo")
+    void multiCashierUndoIsPerTill() throws Exception {
+        int tills = 8;
+        int perTill = 500;
+        MultiCashier cashiers = new MultiCashier(receptorVentas, tills);
+        ExecutorService es = Executors.newFixedThreadPool(tills);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < tills; t++) {
+            final int till = t;
+            futures.add(es.submit(() -> {
+                start.await();
+                for (int i = 0; i < perTill; i++) {
+                    cashiers.executeCommand(till, new RegisterSaleCommand(receptorVentas, new Sale("T" + till + "-" + i, "C")));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        es.shutdown();
+        assertEquals(tills * perTill, receptorVentas.getAllSales().size());
+
+        for (int i = 0; i < 10; i++) cashiers.undoLast(3);
+        assertEquals(tills * perTill - 10, receptorVentas.getAllSales().size());
+        assertNull(receptorVentas.findSale("T3-" + (perTill - 1)));
+        assertNotNull(receptorVentas.findSale("T3-" + (perTill - 11)));
+        assertNotNull(receptorVentas.findSale("T2-" + (perTill - 1)));
+        assertEquals(perTill, cashiers.till(2).getHistorySize());
+    }
+
+    @Test
+    @DisplayName("Deshacer en una caja no borra la venta con el mismo id de otra caja")
+    void multiCashierUndoRemovesOwnSaleWithSameId() {
+        MultiCashier cashiers = new MultiCashier(receptorVentas, 2);
+        Sale primera = new Sale("V-DUP", "Caja0");
+        Sale segunda = new Sale("V-DUP", "Caja1");
+        cashiers.executeCommand(0, new RegisterSaleCommand(receptorVentas, primera));
+        cashiers.executeCommand(1, new RegisterSaleCommand(receptorVentas, segunda));
+
+        cashiers.undoLast(1);
+
+        assertEquals(1, receptorVentas.getAllSales().size());
+        assertSame(primera, receptorVentas.findSale("V-DUP"));
+        assertTrue(receptorVentas.cancelSale(primera));
+        assertFalse(receptorVentas.cancelSale(primera));
+        assertTrue(receptorVentas.getAllSales().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un lote de comandos ocupa una entrada del historial y se deshace completo")
+    void batchIsOneHistoryEntry() {
+        receptorVentas.registerSale(new Sale("PREVIA", "C"));
+        List<Command> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(new RegisterSaleCommand(receptorVentas, new Sale("LOTE-" + i, "C")));
+        }
+        batch.add(new CancelSaleCommand(receptorVentas, "PREVIA"));
+        BatchResult result = invocadorCajero.executeBatch(batch);
+
+        assertEquals(1001, result.getCommandCount());
+        assertTrue(result.getElapsedNanos() > 0);
+        assertEquals(1, invocadorCajero.getHistorySize());
+        assertEquals(1000, receptorVentas.getAllSales().size());
+        String out = salidaConsola.toString();
+        assertTrue(out.contains("Ventas registradas: 1000"));
+        assertFalse(out.contains("Venta registrada: LOTE-"));
+        assertTrue(out.contains("Lote de 1001 comandos"));
+
+        invocadorCajero.undoLast();
+        assertTrue(receptorVentas.getAllSales().isEmpty());
+        assertEquals(0, invocadorCajero.getHistorySize());
+    }
+
+    @Test
+    @DisplayName("Un lote que falla deshace los comandos ya ejecutados")
+    void failingBatchRollsBack() {
+        Sale withItem = new Sale("OK-1", "C");
+        withItem.addMedicine(creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "M", "L", 1));
+        List<Command> batch = new ArrayList<>();
+        batch.add(new RegisterSaleCommand(receptorVentas, withItem));
+        batch.add(new RegisterSaleCommand(receptorVentas, new Sale("OK-2", "C")));
+        batch.add(new ReturnProductCommand(receptorVentas, "OK-1", null));
+        batch.add(new RegisterSaleCommand(receptorVentas, new Sale("NUNCA", "C")));
+
+        assertThrows(NullPointerException.class, () -> invocadorCajero.executeBatch(batch));
+        assertTrue(receptorVentas.getAllSales().isEmpty());
+        assertEquals(0, invocadorCajero.getHistorySize());
+    }
+
+    @Test
+    @DisplayName("Un lote se registra en el diario como un único registro")
+    void batchIsJournaledAsOneRecord(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("batch.journal");
+        try (CommandJournal journal = new CommandJournal(file)) {
+            invocadorCajero.setJournal(journal);
+            List<Command> batch = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                batch.add(new RegisterSaleCommand(receptorVentas, new Sale("J-" + i, "C")));
+            }
+            invocadorCajero.executeBatch(batch);
+            assertEquals(1, journal.getAppendedCount());
+        }
+        SaleReceiver restored = new SaleReceiver();
+        try (CommandJournal journal = new CommandJournal(file)) {
+            assertEquals(1, journal.replay(restored));
+        }
+        assertEquals(50, restored.getAllSales().size());
+        assertEquals("J-49", restored.getAllSales().get(49).getId());
+    }
+}
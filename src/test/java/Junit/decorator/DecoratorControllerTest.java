@@ -13,6 +13,7 @@ import patrones_farmacia.decorator.model.DiscountDecorator;
 import patrones_farmacia.decorator.model.TaxDecorator;
 import patrones_farmacia.decorator.model.ProductDecorator;
 import patrones_farmacia.decorator.view.DecoratorConsole;
+import patrones_farmacia.util.Money;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
@@ -541,4 +542,16 @@ class DecoratorControllerTest {
         }
         assertTrue(controlador.calculateFinalPrice(p) > 0);
     }
+
+    @Test
+    @DisplayName("Decoradores calculan el precio final en centavos exactos")
+    void decoratorsComputeExactCents() {
+        DecoratorController c = new DecoratorController();
+        Product p = c.applyDiscountThenTax(c.createBaseProduct("Jarabe", 19.99), 10, 19);
+        assertEquals(1999, c.createBaseProduct("Jarabe", 19.99).getPriceCents());
+        assertEquals(2141, c.calculateFinalPriceCents(p));
+        assertEquals(Money.of(p.getPrice()), p.getPriceCents());
+        assertEquals("21.41", Money.format(p.getPriceCents()));
+        assertEquals("-0.05", Money.format(-5));
+    }
 }
@@ -7,12 +7,27 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import patrones_farmacia.facade.controller.*;
 import patrones_farmacia.facade.model.Sale;
+import patrones_farmacia.facade.model.StockReservation;
+import patrones_farmacia.facade.model.CheckoutStatus;
+import patrones_farmacia.util.Money;
+import patrones_farmacia.chainOfResponsability.controller.PaymentValidationHandler;
+import patrones_farmacia.chainOfResponsability.controller.StockValidationHandler;
+import patrones_farmacia.chainOfResponsability.model.BaseHandler;
+import patrones_farmacia.chainOfResponsability.model.ParallelHandler;
+import patrones_farmacia.chainOfResponsability.model.ValidationPipeline;
+import patrones_farmacia.Singleton.model.EventLog;
+import patrones_farmacia.Singleton.model.EventSink;
+import patrones_farmacia.Singleton.model.NoOpSink;
 import patrones_farmacia.adapter.model.*;
 import patrones_farmacia.factoryMethod.controller.FCreator;
 import patrones_farmacia.factoryMethod.model.Medicine;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @DisplayName("Pruebas del Patrón Facade para Ventas (ampliadas)")
 class FacadeSaleTest {
@@ -408,4 +423,291 @@ class FacadeSaleTest {
         boolean ok = fachada.doSale(s, null);
         assertFalse(ok);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Reserva por cantidad aparta todo o nada y se confirma o libera una sola vez")
+    void reservationIsAllOrNothing() {
+        Medicine a = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "ResA", "L", 10);
+        Medicine b = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "ResB", "L", 10);
+        sistemaInventario.addToStock(a, 3);
+        sistemaInventario.addToStock(b, 1);
+        Sale s = new Sale("RES-1", "C");
+        s.addMedicine(a);
+        s.addMedicine(a);
+        s.addMedicine(b);
+        s.addMedicine(b);
+
+        StockReservation failed = sistemaInventario.reserve(s);
+        assertFalse(failed.isSuccessful());
+        assertEquals(List.of("ResB"), failed.getMissing());
+        assertEquals(3, sistemaInventario.getAvailable("resa"));
+
+        sistemaInventario.addToStock(b);
+        StockReservation ok = sistemaInventario.reserve(s);
+        assertTrue(ok.isSuccessful());
+        assertEquals(1, sistemaInventario.getAvailable("ResA"));
+        assertEquals(2, sistemaInventario.getReserved("ResA"));
+        assertTrue(ok.release());
+        assertFalse(ok.commit());
+        assertEquals(3, sistemaInventario.getAvailable("ResA"));
+        assertEquals(0, sistemaInventario.getReserved("ResB"));
+    }
+
+    @Test
+    @DisplayName("Cadena con reserva devuelve el stock si el pago falla")
+    void chainReservationReleasedWhenPaymentFails() {
+        Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "ChainRes", "L", 5000);
+        sistemaInventario.addToStock(m);
+        StockValidationHandler stock = new StockValidationHandler(sistemaInventario);
+        AdapterPayMethod pobre = new AdapterPayMethod(new CashMethod(10), tarjeta, billetera);
+        pobre.setMode("CASH");
+        stock.setNext(new PaymentValidationHandler(pobre));
+        Sale s = new Sale("CHR-1", "C");
+        s.addMedicine(m);
+
+        assertFalse(stock.handle(s));
+        assertEquals(1, sistemaInventario.getAvailable("ChainRes"));
+        assertEquals(0, sistemaInventario.getReserved("ChainRes"));
+
+        AdapterPayMethod rico = new AdapterPayMethod(new CashMethod(100000), tarjeta, billetera);
+        rico.setMode("CASH");
+        stock.setNext(new PaymentValidationHandler(rico));
+        assertTrue(stock.handle(s));
+        assertEquals(0, sistemaInventario.getAvailable("ChainRes"));
+        assertFalse(stock.handle(s));
+    }
+
+    @Test
+    @DisplayName("En un pipeline la reserva espera al resultado del pago")
+    void pipelineReservationFollowsPaymentResult() {
+        Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "PipeRes", "L", 5000);
+        sistemaInventario.addToStock(m);
+        AdapterPayMethod pobre = new AdapterPayMethod(new CashMethod(10), tarjeta, billetera);
+        pobre.setMode("CASH");
+        ValidationPipeline rechazo = ValidationPipeline.of(ValidationPipeline.Mode.SHORT_CIRCUIT,
+                new StockValidationHandler(sistemaInventario), new PaymentValidationHandler(pobre));
+        Sale s = new Sale("PPR-1", "C");
+        s.addMedicine(m);
+
+        assertFalse(rechazo.handle(s));
+        assertEquals(1, sistemaInventario.getAvailable("PipeRes"));
+        assertEquals(0, sistemaInventario.getReserved("PipeRes"));
+
+        AdapterPayMethod rico = new AdapterPayMethod(new CashMethod(100000), tarjeta, billetera);
+        rico.setMode("CASH");
+        ValidationPipeline aprobado = ValidationPipeline.of(ValidationPipeline.Mode.SHORT_CIRCUIT,
+                new ParallelHandler(new StockValidationHandler(sistemaInventario)), new PaymentValidationHandler(rico));
+        assertTrue(aprobado.handle(s));
+        assertEquals(0, sistemaInventario.getAvailable("PipeRes"));
+        assertEquals(0, sistemaInventario.getReserved("PipeRes"));
+    }
+
+    @Test
+    @DisplayName("Si una validación paralela rechaza, se devuelve la reserva de las otras")
+    void parallelRejectionReleasesSiblingReservation() {
+        Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "ParRes", "L", 5000);
+        sistemaInventario.addToStock(m);
+        BaseHandler rechaza = new BaseHandler() {
+            @Override
+            public boolean handle(Sale sale) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return false;
+            }
+        };
+        ParallelHandler paralelo = new ParallelHandler(new StockValidationHandler(sistemaInventario), rechaza);
+        Sale s = new Sale("PAR-RES", "C");
+        s.addMedicine(m);
+
+        assertFalse(paralelo.handle(s));
+        assertEquals(1, sistemaInventario.getAvailable("ParRes"));
+        assertEquals(0, sistemaInventario.getReserved("ParRes"));
+    }
+
+    @Test
+    @DisplayName("Checkout concurrente nunca vende más unidades de las que hay")
+    void concurrentCheckoutNeverOversells() throws Exception {
+        EventSink previous = EventLog.getSink();
+        EventLog.setSink(new NoOpSink());
+        try {
+            Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "UltimaUnidad", "L", 1);
+            int units = 200;
+            int threads = 16;
+            int attemptsPerThread = 100;
+            sistemaInventario.addToStock(m, units);
+            ExecutorService es = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger sold = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int till = t;
+                futures.add(es.submit(() -> {
+                    AdapterPayMethod pago = new AdapterPayMethod(new CashMethod(1e9), tarjeta, billetera);
+                    FacadeSale caja = new FacadeSale(sistemaInventario, new PaySystem(pago), sistemaRecibos);
+                    start.await();
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        Sale s = new Sale("CC-" + till + "-" + i, "C");
+                        s.addMedicine(m);
+                        if (caja.doSale(s, "CASH")) sold.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+            es.shutdown();
+            assertEquals(units, sold.get());
+            assertEquals(0, sistemaInventario.getAvailable("UltimaUnidad"));
+            assertEquals(0, sistemaInventario.getReserved("UltimaUnidad"));
+        } finally {
+            EventLog.setSink(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("Checkout por lotes devuelve el resultado de cada venta y ajusta el stock una vez")
+    void batchCheckoutReturnsPerSaleResults() {
+        Medicine a = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "LoteA", "L", 1000);
+        Medicine caro = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "LoteCaro", "L", 40000);
+        Medicine falta = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "LoteFalta", "L", 10);
+        sistemaInventario.addToStock(a, 3);
+        sistemaInventario.addToStock(caro, 2);
+
+        List<Sale> ventas = new ArrayList<>();
+        List<String> modos = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Sale s = new Sale("LOTE-" + i, "C");
+            s.addMedicine(a);
+            ventas.add(s);
+            modos.add(i % 2 == 0 ? "CASH" : "EWALLET");
+        }
+        Sale sinStock = new Sale("LOTE-F", "C");
+        sinStock.addMedicine(falta);
+        ventas.add(sinStock);
+        modos.add("CASH");
+        for (int i = 0; i < 2; i++) {
+            Sale s = new Sale("LOTE-C" + i, "C");
+            s.addMedicine(caro);
+            ventas.add(s);
+            modos.add("EWALLET");
+        }
+
+        CheckoutStatus[] r = fachada.doSales(ventas, modos);
+
+        assertArrayEquals(new CheckoutStatus[] {
+                CheckoutStatus.COMPLETED, CheckoutStatus.COMPLETED, CheckoutStatus.COMPLETED,
+                CheckoutStatus.OUT_OF_STOCK, CheckoutStatus.OUT_OF_STOCK,
+                CheckoutStatus.COMPLETED, CheckoutStatus.PAYMENT_FAILED }, r);
+        assertEquals(0, sistemaInventario.getAvailable("LoteA"));
+        assertEquals(1, sistemaInventario.getAvailable("LoteCaro"));
+        assertEquals(0, sistemaInventario.getReserved("LoteA"));
+        assertEquals(0, sistemaInventario.getReserved("LoteCaro"));
+    }
+
+    @Test
+    @DisplayName("Venta asíncrona se completa y descuenta el stock")
+    void asyncSaleCompletes() throws Exception {
+        Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "Asincrono", "L", 500);
+        sistemaInventario.addToStock(m, 2);
+        Sale venta = new Sale("ASYNC-1", "C");
+        venta.addMedicine(m);
+
+        CheckoutStatus r = fachada.doSaleAsync(venta, "CASH").get(5, TimeUnit.SECONDS);
+
+        assertEquals(CheckoutStatus.COMPLETED, r);
+        assertEquals(1, sistemaInventario.getAvailable("Asincrono"));
+        assertEquals(0, sistemaInventario.getReserved("Asincrono"));
+        fachada.shutdownAsync();
+    }
+
+    @Test
+    @DisplayName("Pago bloqueado vence el plazo, se interrumpe y devuelve el stock")
+    void asyncSaleTimesOutAndReleasesStock() throws Exception {
+        Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "Bloqueado", "L", 500);
+        sistemaInventario.addToStock(m, 1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        PaySystem lento = new PaySystem(adaptadorPagos) {
+            @Override
+            public boolean processPaymentCents(long amountCents, String mode) {
+                try {
+                    Thread.sleep(60_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return false;
+            }
+        };
+        FacadeSale caja = new FacadeSale(sistemaInventario, lento, sistemaRecibos);
+        caja.setPaymentTimeout(100, TimeUnit.MILLISECONDS);
+        Sale venta = new Sale("ASYNC-T", "C");
+        venta.addMedicine(m);
+
+        CompletableFuture<CheckoutStatus> f = caja.doSaleAsync(venta, "CASH");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50 && sistemaInventario.getReserved("Bloqueado") > 0; i++) Thread.sleep(20);
+        assertEquals(1, sistemaInventario.getAvailable("Bloqueado"));
+        assertEquals(0, sistemaInventario.getReserved("Bloqueado"));
+        caja.shutdownAsync();
+    }
+
+    @Test
+    @DisplayName("Pago aprobado después de vencer el plazo se reembolsa y devuelve el stock")
+    void asyncLatePaymentIsRefunded() throws Exception {
+        Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "Tardio", "L", 500);
+        sistemaInventario.addToStock(m, 1);
+        CashMethod efectivo = new CashMethod(1000);
+        CountDownLatch liberar = new CountDownLatch(1);
+        PaySystem tardio = new PaySystem(new AdapterPayMethod(efectivo, tarjeta, billetera)) {
+            @Override
+            public boolean processPaymentCents(long amountCents, String mode) {
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        liberar.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) Thread.currentThread().interrupt();
+                return super.processPaymentCents(amountCents, mode);
+            }
+        };
+        FacadeSale caja = new FacadeSale(sistemaInventario, tardio, sistemaRecibos);
+        caja.setPaymentTimeout(50, TimeUnit.MILLISECONDS);
+        Sale venta = new Sale("ASYNC-L", "C");
+        venta.addMedicine(m);
+
+        CompletableFuture<CheckoutStatus> f = caja.doSaleAsync(venta, "CASH");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException);
+        liberar.countDown();
+
+        for (int i = 0; i < 100 && sistemaInventario.getAvailable("Tardio") < 1; i++) Thread.sleep(20);
+        assertEquals(1, sistemaInventario.getAvailable("Tardio"));
+        assertEquals(1000, efectivo.getCashAvailable(), 0.001);
+        assertEquals(0, sistemaInventario.getReserved("Tardio"));
+        caja.shutdownAsync();
+    }
+
+    @Test
+    @DisplayName("El total en centavos de la venta es exacto y se cobra tal cual")
+    void saleTotalInCentsIsExact() {
+        Medicine m = creadorMedicamentos.createMedicine(FCreator.Type.GENERIC, "Centavos", "L", 0.1);
+        sistemaInventario.addToStock(m, 3);
+        Sale venta = new Sale("CENT-1", "C");
+        for (int i = 0; i < 3; i++) venta.addMedicine(m);
+        assertEquals(30, venta.getTotalCents());
+        assertNotEquals(0.3, venta.getTotal());
+
+        double antes = efectivo.getCashAvailable();
+        assertTrue(fachada.doSale(venta, "CASH"));
+        assertEquals(Money.of(antes) - 30, Money.of(efectivo.getCashAvailable()));
+    }
+}
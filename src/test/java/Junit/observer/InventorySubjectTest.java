@@ -433,6 +433,247 @@ class InventorySubjectTest {
         assertTrue(names2.contains("SafeName"));
     }
 
+    @Test
+    @DisplayName("StockTable resuelve nombres sin distinguir mayúsculas tras crecer")
+    void stockTableLookupAfterGrowth() {
+        StockTable table = new StockTable(2);
+        for (int i = 0; i < 1000; i++) table.add("Sku-" + i, i);
+        assertEquals(1000, table.size());
+        int slot = table.indexOf("SKU-777");
+        assertEquals("Sku-777", table.name(slot));
+        assertEquals(777, table.get(slot));
+        table.set(slot, 1);
+        assertEquals(1, table.get(table.indexOf("sku-777")));
+        assertEquals(-1, table.indexOf("Sku-1000"));
+        assertEquals(-1, table.indexOf(null));
+    }
+
+    @Test
+    @DisplayName("Producto duplicado: las operaciones afectan a la primera entrada")
+    void duplicadoOperaSobrePrimeraEntrada() {
+        sujetoInventario.addProduct("Dup", 10);
+        sujetoInventario.addProduct("DUP", 1);
+        sujetoInventario.reduceStock("dup", 3);
+        assertEquals(7, sujetoInventario.getStockLevel("Dup"));
+        assertTrue(sujetoInventario.getLowStockProducts().contains("DUP"));
+    }
+
+    @Test
+    @DisplayName("Despacho asíncrono no bloquea reduceStock con un observador lento")
+    void despachoAsincronoNoBloqueaVenta() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> recibidos = new CopyOnWriteArrayList<>();
+        FarmaObserver lento = (name, stock) -> {
+            try { release.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            recibidos.add(stock);
+        };
+        AsyncObserverDispatcher dispatcher = new AsyncObserverDispatcher(16, BackpressurePolicy.BLOCK);
+        sujetoInventario.setDispatcher(dispatcher);
+        sujetoInventario.addObserver(lento);
+        sujetoInventario.reduceStock("Paracetamol", 6);
+        sujetoInventario.reduceStock("Paracetamol", 1);
+        assertEquals(3, sujetoInventario.getStockLevel("Paracetamol"));
+        assertTrue(recibidos.isEmpty());
+        release.countDown();
+        assertTrue(dispatcher.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(List.of(4, 3), recibidos);
+        verify(observadorEmail, times(2)).update(eq("Paracetamol"), anyInt());
+        assertEquals(0, dispatcher.getQueueDepth());
+        assertEquals(4, dispatcher.getDispatchedCount());
+        assertTrue(dispatcher.getMaxLatencyNanos() >= dispatcher.getAverageLatencyNanos());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Apagar el despachador con el sujeto conectado no traba ni rompe las ventas")
+    void apagarDespachadorConectadoNoTrabaVentas() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        FarmaObserver lento = (name, stock) -> {
+            try { release.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        };
+        sujetoInventario.removeObserver(observadorEmail);
+        AsyncObserverDispatcher dispatcher = new AsyncObserverDispatcher(1, BackpressurePolicy.BLOCK);
+        sujetoInventario.setDispatcher(dispatcher);
+        sujetoInventario.addObserver(lento);
+        sujetoInventario.reduceStock("Paracetamol", 6);
+        for (int i = 0; i < 250 && dispatcher.getQueueDepth() > 0; i++) Thread.sleep(20);
+        sujetoInventario.reduceStock("Paracetamol", 1);
+        assertEquals(1, dispatcher.getQueueDepth());
+        Thread venta = new Thread(() -> sujetoInventario.reduceStock("Paracetamol", 1));
+        venta.start();
+        for (int i = 0; i < 250 && venta.getState() != Thread.State.WAITING; i++) Thread.sleep(20);
+        assertEquals(Thread.State.WAITING, venta.getState());
+
+        dispatcher.shutdown();
+        venta.join(5000);
+        assertFalse(venta.isAlive());
+        assertDoesNotThrow(() -> sujetoInventario.reduceStock("Paracetamol", 1));
+        assertTrue(dispatcher.getDroppedCount() >= 2);
+        release.countDown();
+        assertTrue(dispatcher.awaitIdle(5, TimeUnit.SECONDS));
+
+        ExecutorService externo = Executors.newSingleThreadExecutor();
+        externo.shutdown();
+        AsyncObserverDispatcher rechazado = new AsyncObserverDispatcher(4, BackpressurePolicy.BLOCK, externo);
+        sujetoInventario.setDispatcher(rechazado);
+        assertDoesNotThrow(() -> sujetoInventario.reduceStock("Paracetamol", 1));
+        assertDoesNotThrow(() -> sujetoInventario.reduceStock("Paracetamol", 1));
+        assertEquals(2, rechazado.getDroppedCount());
+        assertEquals(0, rechazado.getQueueDepth());
+        assertTrue(rechazado.awaitIdle(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("DROP_OLDEST descarta la notificación más antigua al llenarse la cola")
+    void dropOldestDescartaMasAntigua() throws Exception {
+        List<Runnable> pendientes = new ArrayList<>();
+        AsyncObserverDispatcher dispatcher = new AsyncObserverDispatcher(2, BackpressurePolicy.DROP_OLDEST, pendientes::add);
+        FarmaObserver obs = mock(FarmaObserver.class);
+        dispatcher.dispatch(obs, "A", 3);
+        dispatcher.dispatch(obs, "B", 2);
+        dispatcher.dispatch(obs, "C", 1);
+        assertEquals(2, dispatcher.getQueueDepth(obs));
+        assertEquals(1, dispatcher.getDroppedCount());
+        pendientes.forEach(Runnable::run);
+        verify(obs, never()).update(eq("A"), anyInt());
+        verify(obs).update("B", 2);
+        verify(obs).update("C", 1);
+    }
+
+    @Test
+    @DisplayName("COALESCE entrega solo el último stock pendiente por producto")
+    void coalesceEntregaUltimoStock() {
+        List<Runnable> pendientes = new ArrayList<>();
+        AsyncObserverDispatcher dispatcher = new AsyncObserverDispatcher(4, BackpressurePolicy.COALESCE, pendientes::add);
+        FarmaObserver obs = mock(FarmaObserver.class);
+        dispatcher.dispatch(obs, "Jarabe", 5);
+        dispatcher.dispatch(obs, "jarabe", 4);
+        dispatcher.dispatch(obs, "Jarabe", 3);
+        assertEquals(1, dispatcher.getQueueDepth());
+        assertEquals(2, dispatcher.getCoalescedCount());
+        pendientes.forEach(Runnable::run);
+        verify(obs, times(1)).update(eq("Jarabe"), eq(3));
+        verifyNoMoreInteractions(obs);
+    }
+
+    @Test
+    @DisplayName("Coalescencia de alertas: una al cruzar el umbral y luego solo el último stock")
+    void coalescenciaDeAlertasPorProducto() {
+        LowStockCoalescer coalescer = sujetoInventario.enableAlertCoalescing(60_000);
+        sujetoInventario.addProduct("Gripa", 100);
+        sujetoInventario.reduceStock("Gripa", 96);
+        for (int i = 0; i < 3; i++) sujetoInventario.reduceStock("Gripa", 1);
+        verify(observadorEmail, times(1)).update("Gripa", 4);
+        verify(observadorEmail, times(1)).update(eq("Gripa"), anyInt());
+        coalescer.flush();
+        verify(observadorEmail, times(1)).update("Gripa", 1);
+        assertEquals(4, coalescer.getReceivedCount());
+        assertEquals(2, coalescer.getDeliveredCount());
+        sujetoInventario.disableAlertCoalescing();
+    }
+
+    @Test
+    @DisplayName("Sin cambios de stock no se repite la alerta al cerrar cada ventana")
+    void coalescenciaSinCambiosNoRepiteAlerta() throws Exception {
+        FarmaObserver destino = mock(FarmaObserver.class);
+        LowStockCoalescer coalescer = new LowStockCoalescer(30, destino);
+        coalescer.onLowStock("Agotado", 0);
+        coalescer.onLowStock("Agotado", 0);
+        Thread.sleep(60);
+        coalescer.onLowStock("Agotado", 0);
+        coalescer.flush();
+        verify(destino, times(1)).update("Agotado", 0);
+        coalescer.onLowStock("Agotado", 0);
+        Thread.sleep(60);
+        verifyNoMoreInteractions(destino);
+        coalescer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Tras cerrar el coalescedor las alertas se entregan en el hilo que llama")
+    void coalescedorCerradoEntregaSincronico() {
+        FarmaObserver destino = mock(FarmaObserver.class);
+        LowStockCoalescer coalescer = new LowStockCoalescer(60_000, destino);
+        coalescer.onLowStock("Jarabe", 4);
+        coalescer.onLowStock("Jarabe", 3);
+        coalescer.shutdown();
+        verify(destino).update("Jarabe", 4);
+        verify(destino).update("Jarabe", 3);
+        assertDoesNotThrow(() -> coalescer.onLowStock("Jarabe", 2));
+        verify(destino).update("Jarabe", 2);
+    }
+
+    @Test
+    @DisplayName("Productos con stock bajo se listan en orden de inserción")
+    void stockBajoEnOrdenDeInsercion() {
+        sujetoInventario.addProduct("A", 1);
+        sujetoInventario.addProduct("B", 1);
+        sujetoInventario.addProduct("C", 1);
+        sujetoInventario.increaseStock("A", 50);
+        sujetoInventario.reduceStock("A", 50);
+        List<String> low = sujetoInventario.getLowStockProducts();
+        assertEquals(List.of("A", "B", "C"), low.subList(low.size() - 3, low.size()));
+    }
+
+    @Test
+    @DisplayName("Reponer por encima del umbral rearma la alerta inmediata")
+    void reposicionRearmaAlerta() {
+        sujetoInventario.enableAlertCoalescing(60_000);
+        sujetoInventario.reduceStock("Paracetamol", 6);
+        sujetoInventario.increaseStock("Paracetamol", 20);
+        sujetoInventario.reduceStock("Paracetamol", 22);
+        verify(observadorEmail).update("Paracetamol", 4);
+        verify(observadorEmail).update("Paracetamol", 2);
+        sujetoInventario.disableAlertCoalescing();
+    }
+
+    @Test
+    @DisplayName("El conjunto de stock bajo se mantiene al reducir, reponer y cambiar umbral")
+    void conjuntoStockBajoIncremental() {
+        sujetoInventario.addProduct("L1", 8);
+        sujetoInventario.addProduct("L2", 3);
+        assertFalse(sujetoInventario.getLowStockProducts().contains("L1"));
+        sujetoInventario.reduceStock("L1", 7);
+        assertTrue(sujetoInventario.getLowStockProducts().contains("L1"));
+        sujetoInventario.increaseStock("L2", 10);
+        assertFalse(sujetoInventario.getLowStockProducts().contains("L2"));
+        sujetoInventario.setMinThreshold(20);
+        assertTrue(sujetoInventario.getLowStockProducts().containsAll(List.of("Paracetamol", "L1", "L2")));
+        sujetoInventario.setMinThreshold(0);
+        assertTrue(sujetoInventario.getLowStockProducts().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Vista ordenada de stock bajo: menor stock primero")
+    void vistaOrdenadaStockBajo() {
+        sujetoInventario.addProduct("Tres", 3);
+        sujetoInventario.addProduct("Cero", 0);
+        sujetoInventario.addProduct("Cinco", 5);
+        sujetoInventario.addProduct("Uno", 1);
+        assertEquals(List.of("Cero", "Uno", "Tres", "Cinco"), sujetoInventario.getLowStockProductsByStock());
+    }
+
+    @Test
+    @DisplayName("Umbral por producto tiene prioridad sobre el global")
+    void umbralPorProducto() {
+        sujetoInventario.addProduct("Rapido", 30);
+        sujetoInventario.addProduct("Lento", 30);
+        assertTrue(sujetoInventario.setProductThreshold("rapido", 20));
+        assertEquals(20, sujetoInventario.getProductThreshold("Rapido"));
+        assertEquals(5, sujetoInventario.getProductThreshold("Lento"));
+        assertEquals(-1, sujetoInventario.getProductThreshold("NoExiste"));
+        sujetoInventario.reduceStock("Rapido", 12);
+        sujetoInventario.reduceStock("Lento", 12);
+        verify(observadorEmail).update("Rapido", 18);
+        verify(observadorEmail, never()).update(eq("Lento"), anyInt());
+        assertTrue(sujetoInventario.getLowStockProducts().contains("Rapido"));
+        sujetoInventario.setMinThreshold(1);
+        assertTrue(sujetoInventario.getLowStockProducts().contains("Rapido"));
+        sujetoInventario.setProductThreshold("Rapido", StockTable.NO_THRESHOLD);
+        assertFalse(sujetoInventario.getLowStockProducts().contains("Rapido"));
+        assertFalse(sujetoInventario.setProductThreshold("NoExiste", 3));
+    }
+
     @Test
     @DisplayName("Many rapid adds mantienen consistencia")
     void manyRapidAddsMaintainConsistency() {
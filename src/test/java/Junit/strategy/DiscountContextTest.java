@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import patrones_farmacia.strategy.model.*;
 import patrones_farmacia.strategy.controller.*;
 import patrones_farmacia.strategy.view.*;
+import patrones_farmacia.util.Money;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
@@ -650,4 +651,19 @@ class DiscountContextTest {
         }
         assertTrue(contexto.describe().length() > 0);
     }
+
+    @Test
+    @DisplayName("Estrategias en centavos dan resultados exactos")
+    void strategiesInCentsAreExact() {
+        DiscountContext ctx = new DiscountContext();
+        assertEquals(1999, ctx.applyCents(1999));
+        ctx.setStrategy(new PercentageDiscount(10));
+        assertEquals(900, ctx.applyCents(1000));
+        assertEquals(1, ctx.applyCents(1));
+        ctx.setStrategy(new VIPClientDiscount(100, 20));
+        assertEquals(9999, ctx.applyCents(9999));
+        assertEquals(8000, ctx.applyCents(10000));
+        ctx.setStrategy(new NoDiscount());
+        assertEquals(Money.of(0.1) + Money.of(0.2), ctx.applyCents(30));
+    }
 }